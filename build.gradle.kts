@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("org.jetbrains.intellij") version "1.17.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.tanshion"
@@ -10,6 +11,11 @@ repositories {
     mavenCentral()
 }
 
+dependencies {
+    // Light fixture tests: ./gradlew test (golden files in src/test/testData)
+    testImplementation("junit:junit:4.13.2")
+}
+
 // Configure Gradle IntelliJ Plugin
 // Read more: https://plugins.jetbrains.com/docs/intellij/tools-gradle-intellij-plugin.html
 intellij {
@@ -19,6 +25,13 @@ intellij {
     plugins.set(listOf("com.intellij.java"))
 }
 
+// Generator benchmarks: ./gradlew jmh (results in build/results/jmh)
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 tasks {
     // Set the JVM compatibility versions
     withType<JavaCompile> {
@@ -27,7 +40,7 @@ tasks {
         targetCompatibility = "17"
     }
     patchPluginXml {
-        sinceBuild.set("201")
+        sinceBuild.set("223")
         untilBuild.set("251.*")
     }
 
@@ -0,0 +1,60 @@
+plugins {
+    id("java-gradle-plugin")
+}
+
+group = "com.github.tanshion"
+version = "1.6"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation("org.ow2.asm:asm:9.7")
+    testImplementation("junit:junit:4.13.2")
+    testImplementation(gradleTestKit())
+}
+
+// 生成规则与 IDE 插件共用：只编译不依赖 IntelliJ 平台的源文件
+sourceSets {
+    main {
+        java {
+            srcDir("../src/main/java")
+            include(
+                "com/github/tanshion/mybatiscondition/gradle/**",
+                "com/github/tanshion/mybatiscondition/ColumnNamingStrategy.java",
+                "com/github/tanshion/mybatiscondition/ConditionField.java",
+                "com/github/tanshion/mybatiscondition/ConditionFragment.java",
+                "com/github/tanshion/mybatiscondition/ConditionModel.java",
+                "com/github/tanshion/mybatiscondition/ConditionTemplate.java",
+                "com/github/tanshion/mybatiscondition/FieldKind.java",
+                "com/github/tanshion/mybatiscondition/FieldRules.java",
+                "com/github/tanshion/mybatiscondition/MybatisSqlGen.java",
+                "com/github/tanshion/mybatiscondition/NestedModelResolver.java",
+                "com/github/tanshion/mybatiscondition/RangeFields.java",
+                "com/github/tanshion/mybatiscondition/StrUtil.java",
+                "com/github/tanshion/mybatiscondition/TemplateRegistry.java",
+            )
+        }
+    }
+}
+
+gradlePlugin {
+    plugins {
+        create("mybatisCondition") {
+            id = "com.github.tanshion.mybatis-condition"
+            implementationClass = "com.github.tanshion.mybatiscondition.gradle.MybatisConditionPlugin"
+        }
+    }
+}
+
+// 与 IDE 插件的 GoldenXmlTest 共用期望文件，核对字节码和 PSI 构建的模型生成相同的片段
+tasks.test {
+    systemProperty("goldenDir", file("../src/test/testData/golden").absolutePath)
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+    sourceCompatibility = "17"
+    targetCompatibility = "17"
+}
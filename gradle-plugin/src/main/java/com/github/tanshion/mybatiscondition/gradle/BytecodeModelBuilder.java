@@ -0,0 +1,304 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import com.github.tanshion.mybatiscondition.*;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.util.*;
+
+/**
+ * 从字节码构建字段模型，分类规则与 IDE 中的 ConditionModelBuilder 一致。
+ */
+final class BytecodeModelBuilder {
+
+    private static final String COLLECTION = "java.util.Collection";
+
+    private final ClassIndex index;
+    private final ColumnNamingStrategy namingStrategy;
+    private final int nestedDepth;
+    // 类自身的字段模型，嵌套对象字段尚未展开，多个根类之间共用
+    private final Map<String, Optional<ConditionModel>> classModels = new HashMap<>();
+    private final Map<String, Boolean> collectionTypes = new HashMap<>();
+
+    BytecodeModelBuilder(ClassIndex index, ColumnNamingStrategy namingStrategy, int nestedDepth) {
+        this.index = index;
+        this.namingStrategy = namingStrategy;
+        this.nestedDepth = nestedDepth;
+    }
+
+    ConditionModel build(ClassIndex.ClassInfo classInfo) {
+        return new NestedModelResolver(nestedDepth, type -> {
+            ClassIndex.ClassInfo nestedClass = index.findByName(type);
+            return nestedClass == null ? null : getClassModel(nestedClass);
+        }).resolve(getClassModel(classInfo));
+    }
+
+    /**
+     * 与 PsiClass#getAllFields 相同：自身字段在前，随后是父类和接口的字段。
+     */
+    List<ClassIndex.FieldInfo> getAllFields(ClassIndex.ClassInfo classInfo) {
+        List<ClassIndex.FieldInfo> fields = new ArrayList<>();
+        collectFields(classInfo, fields, new HashSet<>());
+        return fields;
+    }
+
+    private ConditionModel getClassModel(ClassIndex.ClassInfo classInfo) {
+        return classModels.computeIfAbsent(classInfo.binaryName(), name -> Optional.of(createClassModel(classInfo))).orElse(null);
+    }
+
+    private ConditionModel createClassModel(ClassIndex.ClassInfo classInfo) {
+        List<ClassIndex.FieldInfo> allFields = getAllFields(classInfo);
+        Map<ClassIndex.FieldInfo, TypeText> types = new HashMap<>();
+        // 时间和数值类型的字段才参与起止字段配对
+        List<String> rangeCandidates = new ArrayList<>();
+        for (ClassIndex.FieldInfo field : allFields) {
+            TypeText type = TypeText.of(field, index);
+            types.put(field, type);
+            if (FieldRules.isRangeType(type.text())) {
+                rangeCandidates.add(field.name());
+            }
+        }
+        Map<String, RangeFields.Bound> bounds = RangeFields.pair(rangeCandidates);
+        List<ConditionField> fields = new ArrayList<>(allFields.size());
+        for (ClassIndex.FieldInfo field : allFields) {
+            RangeFields.Bound bound = bounds.get(field.name());
+            TypeText type = types.get(field);
+            if (bound != null) {
+                FieldKind kind = bound.start() ? FieldKind.RANGE_START : FieldKind.RANGE_END;
+                fields.add(new ConditionField(field.name(), resolveColumn(field, bound.baseName()), kind, type.text(), null, kind.getDefaultOperation()));
+            } else {
+                fields.add(toConditionField(field, type));
+            }
+        }
+        return new ConditionModel(classInfo.name(), fields);
+    }
+
+    private ConditionField toConditionField(ClassIndex.FieldInfo field, TypeText type) {
+        String fieldName = field.name();
+        String elementType = null;
+        FieldKind kind;
+        ClassIndex.ClassInfo fieldClass = type.binaryName() == null ? null : index.find(type.binaryName());
+        if (String.class.getName().equals(type.text())) {
+            kind = FieldKind.STRING;
+        } else if (fieldClass != null && isCollection(fieldClass)) {
+            elementType = type.elementType();
+            kind = elementType != null && FieldRules.TEMPORAL_TYPES.contains(elementType) ? FieldKind.TEMPORAL_COLLECTION : FieldKind.COLLECTION;
+        } else if (Boolean.class.getName().equals(type.text()) || "boolean".equals(type.text())) {
+            kind = FieldKind.BOOLEAN;
+        } else if (isNestedClass(fieldClass)) {
+            // 列名在展开时替换为该类型的 <sql> id
+            return new ConditionField(fieldName, null, FieldKind.NESTED, fieldClass.name(), null, FieldKind.NESTED.getDefaultOperation());
+        } else {
+            kind = FieldKind.SCALAR;
+        }
+        return new ConditionField(fieldName, resolveColumn(field, fieldName), kind, type.text(), elementType, kind.getDefaultOperation());
+    }
+
+    private String resolveColumn(ClassIndex.FieldInfo field, String name) {
+        for (String[] columnAnnotation : FieldRules.COLUMN_ANNOTATIONS) {
+            Map<String, String> values = field.annotations().get(columnAnnotation[0]);
+            String column = values == null ? null : values.get(columnAnnotation[1]);
+            if (!StrUtil.isBlank(column)) {
+                return column.trim();
+            }
+        }
+        return namingStrategy.apply(name);
+    }
+
+    private boolean isNestedClass(ClassIndex.ClassInfo classInfo) {
+        if (classInfo == null || classInfo.isInterface() || classInfo.isEnum() || classInfo.isAnnotation()) {
+            return false;
+        }
+        // 与 IDE 一致只展开项目中的类，这里是本次扫描的编译输出；依赖中的值类型按普通参数绑定
+        return !FieldRules.isJdkType(classInfo.name()) && index.isScanned(classInfo.binaryName()) && !getAllFields(classInfo).isEmpty();
+    }
+
+    private boolean isCollection(ClassIndex.ClassInfo classInfo) {
+        Boolean cached = collectionTypes.get(classInfo.binaryName());
+        if (cached != null) {
+            return cached;
+        }
+        boolean result = COLLECTION.equals(classInfo.binaryName());
+        List<String> supers = new ArrayList<>(classInfo.interfaces());
+        if (classInfo.superName() != null) {
+            supers.add(classInfo.superName());
+        }
+        for (int i = 0; !result && i < supers.size(); i++) {
+            ClassIndex.ClassInfo superClass = index.find(supers.get(i));
+            result = superClass != null && isCollection(superClass);
+        }
+        collectionTypes.put(classInfo.binaryName(), result);
+        return result;
+    }
+
+    private void collectFields(ClassIndex.ClassInfo classInfo, List<ClassIndex.FieldInfo> fields, Set<String> visited) {
+        if (!visited.add(classInfo.binaryName())) {
+            return;
+        }
+        fields.addAll(classInfo.fields());
+        List<String> supers = new ArrayList<>();
+        if (classInfo.superName() != null) {
+            supers.add(classInfo.superName());
+        }
+        supers.addAll(classInfo.interfaces());
+        for (String superName : supers) {
+            ClassIndex.ClassInfo superClass = index.find(superName);
+            if (superClass != null) {
+                collectFields(superClass, fields, visited);
+            }
+        }
+    }
+
+    /**
+     * 字段类型的规范文本（含泛型参数，与 PsiType#getCanonicalText 相同）。
+     *
+     * @param binaryName  类类型的二进制名，基本类型、数组和类型变量为 null
+     * @param elementType 只有一个确切类型参数时该参数的规范名，通配符和类型变量不算
+     */
+    private record TypeText(String text, String binaryName, String elementType) {
+
+        static TypeText of(ClassIndex.FieldInfo field, ClassIndex index) {
+            if (field.signature() == null) {
+                Type type = Type.getType(field.descriptor());
+                if (type.getSort() != Type.OBJECT) {
+                    return new TypeText(type.getClassName(), null, null);
+                }
+                return new TypeText(canonicalName(type.getClassName(), index), type.getClassName(), null);
+            }
+            TypeTextVisitor visitor = new TypeTextVisitor(index);
+            new SignatureReader(field.signature()).acceptType(visitor);
+            return visitor.toTypeText();
+        }
+
+        private static String canonicalName(String binaryName, ClassIndex index) {
+            ClassIndex.ClassInfo classInfo = index.find(binaryName);
+            return classInfo != null ? classInfo.name() : binaryName.replace('$', '.');
+        }
+    }
+
+    private static final class TypeTextVisitor extends SignatureVisitor {
+        private final ClassIndex index;
+        private final StringBuilder text = new StringBuilder();
+        private String binaryName;
+        private int dimensions;
+        private boolean typeVariable;
+        private int arguments;
+        private String elementType;
+        // 类型参数在下一个参数或 visitEnd 时才完整（基本类型和类型变量参数没有 visitEnd）
+        private TypeTextVisitor pending;
+        private char pendingWildcard;
+        private boolean closed;
+
+        TypeTextVisitor(ClassIndex index) {
+            super(Opcodes.ASM9);
+            this.index = index;
+        }
+
+        @Override
+        public void visitBaseType(char descriptor) {
+            text.append(Type.getType(String.valueOf(descriptor)).getClassName());
+        }
+
+        @Override
+        public void visitTypeVariable(String name) {
+            typeVariable = true;
+            text.append(name);
+        }
+
+        @Override
+        public SignatureVisitor visitArrayType() {
+            dimensions++;
+            return this;
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            binaryName = Type.getObjectType(name).getClassName();
+            text.append(TypeText.canonicalName(binaryName, index));
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            closeArguments();
+            binaryName = binaryName + "$" + name;
+            text.append('.').append(name);
+            arguments = 0;
+            closed = false;
+            elementType = null;
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            startArgument();
+            text.append('?');
+            elementType = null;
+        }
+
+        @Override
+        public SignatureVisitor visitTypeArgument(char wildcard) {
+            startArgument();
+            if (wildcard == EXTENDS) {
+                text.append("? extends ");
+            } else if (wildcard == SUPER) {
+                text.append("? super ");
+            }
+            pending = new TypeTextVisitor(index);
+            pendingWildcard = wildcard;
+            return pending;
+        }
+
+        @Override
+        public void visitEnd() {
+            closeArguments();
+        }
+
+        private void startArgument() {
+            flushArgument();
+            text.append(arguments == 0 ? "<" : ",");
+            arguments++;
+        }
+
+        private void flushArgument() {
+            if (pending == null) {
+                return;
+            }
+            TypeText argument = pending.toTypeText();
+            text.append(argument.text());
+            boolean exact = pendingWildcard == INSTANCEOF && argument.binaryName() != null;
+            elementType = exact ? TypeText.canonicalName(argument.binaryName(), index) : null;
+            pending = null;
+        }
+
+        private void closeArguments() {
+            flushArgument();
+            if (arguments > 0 && !closed) {
+                text.append('>');
+                closed = true;
+            }
+        }
+
+        TypeText toTypeText() {
+            flushArgument();
+            String typeText = text + "[]".repeat(dimensions);
+            if (dimensions > 0 || typeVariable) {
+                return new TypeText(typeText, null, null);
+            }
+            return new TypeText(typeText, binaryName, arguments == 1 ? elementType : null);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import org.objectweb.asm.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 编译输出目录中的类，以及按需从编译类路径读取的依赖类。类在第一次查找时才解析，只读取类头、字段和方法签名，跳过方法体。
+ */
+final class ClassIndex {
+
+    /**
+     * @param name       规范名，内部类用 . 分隔，例如 com.example.Outer.Inner
+     * @param fields     按声明顺序
+     * @param methodArgs 每个方法的参数类型的二进制名，基本类型和数组除外
+     */
+    record ClassInfo(String name, String binaryName, int access, String superName, List<String> interfaces,
+                     List<FieldInfo> fields, Set<String> annotations, List<List<String>> methodArgs) {
+
+        boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+
+        boolean isEnum() {
+            return (access & Opcodes.ACC_ENUM) != 0;
+        }
+
+        boolean isAnnotation() {
+            return (access & Opcodes.ACC_ANNOTATION) != 0;
+        }
+
+        String simpleName() {
+            return name.substring(name.lastIndexOf('.') + 1);
+        }
+    }
+
+    /**
+     * @param descriptor  字段描述符
+     * @param signature   泛型签名，没有时为 null
+     * @param annotations 注解全限定名到字符串属性值（属性名 -> 值）
+     */
+    record FieldInfo(String name, String descriptor, String signature, Map<String, Map<String, String>> annotations) {
+    }
+
+    // 编译输出中的类文件，按二进制名；内容在用到时才读取和解析
+    private final Map<String, Path> scanned = new LinkedHashMap<>();
+    private final Map<String, Optional<ClassInfo>> parsed = new HashMap<>();
+    private final Map<String, String> hashes = new HashMap<>();
+    private final ClassLoader classpath;
+    // 记录期间 find 查找过的类（包括找不到的），即构建模型依赖的类
+    private Set<String> accessed;
+
+    /**
+     * @param classpath 读取依赖类的 .class 资源，不会加载或初始化类
+     */
+    ClassIndex(ClassLoader classpath) {
+        this.classpath = classpath;
+    }
+
+    /**
+     * 只记录类文件路径，不读取内容。
+     */
+    void scan(Path classesDir) {
+        if (!Files.isDirectory(classesDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(".class") || fileName.equals("module-info.class") || fileName.equals("package-info.class")) {
+                    continue;
+                }
+                String path = classesDir.relativize(file).toString().replace(file.getFileSystem().getSeparator(), ".");
+                scanned.putIfAbsent(path.substring(0, path.length() - ".class".length()), file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not scan " + classesDir, e);
+        }
+    }
+
+    Set<String> getScannedNames() {
+        return Collections.unmodifiableSet(scanned.keySet());
+    }
+
+    /**
+     * 类来自编译输出目录，而不是类路径上的依赖。
+     */
+    boolean isScanned(String binaryName) {
+        return scanned.containsKey(binaryName);
+    }
+
+    /**
+     * 按二进制名（内部类用 $）查找，先查编译输出，再从类路径读取。
+     */
+    ClassInfo find(String binaryName) {
+        if (accessed != null) {
+            accessed.add(binaryName);
+        }
+        return parsed.computeIfAbsent(binaryName, name -> Optional.ofNullable(readBytes(name)).map(ClassIndex::read)).orElse(null);
+    }
+
+    /**
+     * 按规范名查找。规范名中的 . 可能是包分隔符也可能是内部类分隔符，从右往左依次尝试。
+     */
+    ClassInfo findByName(String name) {
+        String binaryName = name;
+        while (true) {
+            ClassInfo info = find(binaryName);
+            if (info != null) {
+                return info;
+            }
+            int dot = binaryName.lastIndexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            binaryName = binaryName.substring(0, dot) + '$' + binaryName.substring(dot + 1);
+        }
+    }
+
+    /**
+     * 类文件内容的 SHA-256，找不到的类为 "-"。只读取字节，不解析。
+     */
+    String hash(String binaryName) {
+        return hashes.computeIfAbsent(binaryName, name -> {
+            byte[] bytes = readBytes(name);
+            return bytes == null ? "-" : Hashes.sha256(bytes);
+        });
+    }
+
+    void startRecording() {
+        accessed = new LinkedHashSet<>();
+    }
+
+    Set<String> stopRecording() {
+        Set<String> result = accessed;
+        accessed = null;
+        return result;
+    }
+
+    private byte[] readBytes(String binaryName) {
+        try {
+            Path file = scanned.get(binaryName);
+            if (file != null) {
+                return Files.readAllBytes(file);
+            }
+            try (InputStream in = classpath.getResourceAsStream(binaryName.replace('.', '/') + ".class")) {
+                return in == null ? null : in.readAllBytes();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ClassInfo read(byte[] bytes) {
+        ClassReader reader = new ClassReader(bytes);
+        InfoVisitor visitor = new InfoVisitor();
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return visitor.toInfo();
+    }
+
+    /**
+     * 内部类的规范名：去掉 $ 只对真正的内部类有效，这里按 InnerClasses 属性中的外部类和简单名拼接。
+     */
+    private static final class InfoVisitor extends ClassVisitor {
+        private String internalName;
+        private int access;
+        private String superName;
+        private List<String> interfaces = List.of();
+        private String outerName;
+        private String innerName;
+        private final List<FieldInfo> fields = new ArrayList<>();
+        private final Set<String> annotations = new LinkedHashSet<>();
+        private final List<List<String>> methodArgs = new ArrayList<>();
+
+        InfoVisitor() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.internalName = name;
+            this.access = access;
+            this.superName = superName == null ? null : Type.getObjectType(superName).getClassName();
+            List<String> names = new ArrayList<>(interfaces.length);
+            for (String anInterface : interfaces) {
+                names.add(Type.getObjectType(anInterface).getClassName());
+            }
+            this.interfaces = names;
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(internalName)) {
+                this.outerName = outerName;
+                this.innerName = innerName;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            annotations.add(Type.getType(descriptor).getClassName());
+            return null;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & Opcodes.ACC_SYNTHETIC) != 0) {
+                return null;
+            }
+            Map<String, Map<String, String>> fieldAnnotations = new LinkedHashMap<>();
+            fields.add(new FieldInfo(name, descriptor, signature, fieldAnnotations));
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                    Map<String, String> values = new LinkedHashMap<>();
+                    fieldAnnotations.put(Type.getType(annotationDescriptor).getClassName(), values);
+                    return new AnnotationVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visit(String attribute, Object value) {
+                            if (value instanceof String text) {
+                                values.put(attribute, text);
+                            }
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if ((access & Opcodes.ACC_SYNTHETIC) == 0 && (access & Opcodes.ACC_BRIDGE) == 0) {
+                List<String> args = new ArrayList<>();
+                for (Type type : Type.getArgumentTypes(descriptor)) {
+                    if (type.getSort() == Type.OBJECT) {
+                        args.add(type.getClassName());
+                    }
+                }
+                methodArgs.add(args);
+            }
+            return null;
+        }
+
+        ClassInfo toInfo() {
+            String binaryName = Type.getObjectType(internalName).getClassName();
+            String name = outerName != null && innerName != null
+                    ? Type.getObjectType(outerName).getClassName().replace('$', '.') + "." + innerName
+                    : binaryName;
+            return new ClassInfo(name, binaryName, access, superName, interfaces, fields, annotations, methodArgs);
+        }
+    }
+}
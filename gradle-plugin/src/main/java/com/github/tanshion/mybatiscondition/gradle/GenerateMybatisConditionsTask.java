@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import com.github.tanshion.mybatiscondition.ColumnNamingStrategy;
+import com.github.tanshion.mybatiscondition.TemplateRegistry;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 扫描编译输出中的 Mapper 接口，为方法参数类生成条件片段。只读取字节码，不加载项目中的类。
+ */
+@CacheableTask
+public abstract class GenerateMybatisConditionsTask extends DefaultTask {
+
+    @InputFiles
+    @SkipWhenEmpty
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getClassesDirs();
+
+    /**
+     * 参数类的父类和字段类型可能来自依赖。
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    @Input
+    public abstract Property<String> getDbType();
+
+    @Input
+    public abstract Property<String> getTableAlias();
+
+    @Input
+    public abstract Property<String> getParamPrefix();
+
+    @Input
+    public abstract Property<String> getNamingStrategy();
+
+    @Input
+    public abstract Property<Integer> getNestedDepth();
+
+    @Input
+    public abstract MapProperty<String, String> getTemplates();
+
+    @Input
+    public abstract ListProperty<String> getIncludes();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @TaskAction
+    public void generate() throws IOException {
+        // 与设置页面一致：无法编译的自定义模板直接报错，不悄悄退回默认模板
+        Map<String, String> errors = new TemplateRegistry(getTemplates().get()).getErrors();
+        if (!errors.isEmpty()) {
+            throw new InvalidUserDataException("Invalid MybatisCondition templates: " + errors);
+        }
+        IncrementalGenerator.Settings settings = new IncrementalGenerator.Settings(getDbType().get(), getTableAlias().get(),
+                getParamPrefix().get(), ColumnNamingStrategy.of(getNamingStrategy().get()), getNestedDepth().get(),
+                new TreeMap<>(getTemplates().get()), getIncludes().get());
+        try (URLClassLoader classpath = new URLClassLoader(toUrls(getClasspath().getFiles()), ClassLoader.getPlatformClassLoader())) {
+            ClassIndex index = new ClassIndex(classpath);
+            for (File classesDir : getClassesDirs().getFiles()) {
+                index.scan(classesDir.toPath());
+            }
+            IncrementalGenerator.Result result = new IncrementalGenerator(settings).generate(index, getOutputDirectory().get().getAsFile().toPath());
+            getLogger().lifecycle("MybatisCondition: {} generated, {} unchanged, {} removed",
+                    result.generated(), result.skipped(), result.deleted());
+        }
+    }
+
+    private static URL[] toUrls(Iterable<File> files) throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        for (File file : files) {
+            urls.add(file.toURI().toURL());
+        }
+        return urls.toArray(URL[]::new);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import com.github.tanshion.mybatiscondition.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 为 Mapper 接口方法的参数类生成条件片段，每个参数类一个文件。
+ * <p>
+ * 增量：清单中记录每个类文件内容的哈希，以及每个参数类的模型读取过的所有类（自身、父类、嵌套类型等）和它们的哈希。
+ * 再次运行时先只比较类文件的字节哈希，相关类都没有变化的参数类不解析、不构建模型；内容变化的类文件才重新解析。
+ */
+final class IncrementalGenerator {
+
+    static final String MANIFEST = "mybatis-condition.hashes";
+    static final String MAPPER_ANNOTATION = "org.apache.ibatis.annotations.Mapper";
+    // 生成规则变化时修改，使所有类重新生成
+    private static final String GENERATOR_VERSION = "2";
+    private static final String HEADER = "#";
+    private static final String SCAN = "scan";
+    private static final String CLASS = "class";
+    private static final String NO_OUTPUT = "-";
+
+    /**
+     * @param templates 自定义模板，键为 TemplateRegistry#key
+     * @param includes  不在 Mapper 方法参数中、也要生成的类，支持 * （不跨包）和 ** 通配符
+     */
+    record Settings(String dbType, String tableAlias, String paramPrefix, ColumnNamingStrategy namingStrategy, int nestedDepth,
+                    SortedMap<String, String> templates, List<String> includes) {
+    }
+
+    record Result(int generated, int skipped, int deleted) {
+    }
+
+    /**
+     * @param hash 类文件内容的哈希
+     * @param args Mapper 接口方法参数类型的二进制名，不是 Mapper 时为空
+     */
+    private record Scan(String hash, List<String> args) {
+    }
+
+    /**
+     * @param output       生成的文件名，不是查询类时为 null
+     * @param dependencies 构建模型时读取过的类到其内容哈希
+     */
+    private record ClassEntry(String output, Map<String, String> dependencies) {
+    }
+
+    private final Settings settings;
+    private final TemplateRegistry templates;
+
+    IncrementalGenerator(Settings settings) {
+        this.settings = settings;
+        this.templates = settings.templates().isEmpty() ? TemplateRegistry.getDefault() : new TemplateRegistry(settings.templates());
+    }
+
+    Result generate(ClassIndex index, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        Path manifestFile = outputDir.resolve(MANIFEST);
+        String settingsHash = settingsHash();
+        Map<String, Scan> previousScans = new HashMap<>();
+        Map<String, ClassEntry> previousClasses = new HashMap<>();
+        readManifest(manifestFile, settingsHash, previousScans, previousClasses);
+
+        Map<String, Scan> scans = new TreeMap<>();
+        Set<String> candidates = findCandidates(index, previousScans, scans);
+
+        Map<String, ClassEntry> classes = new TreeMap<>();
+        int generated = 0;
+        int skipped = 0;
+        for (String candidate : candidates) {
+            ClassEntry previous = previousClasses.get(candidate);
+            if (previous != null && isUpToDate(previous, index, outputDir)) {
+                classes.put(candidate, previous);
+                skipped += previous.output() != null ? 1 : 0;
+                continue;
+            }
+            ClassEntry entry = generate(candidate, index, outputDir);
+            classes.put(candidate, entry);
+            generated += entry.output() != null ? 1 : 0;
+        }
+
+        Set<String> outputs = new HashSet<>();
+        classes.values().forEach(entry -> outputs.add(entry.output()));
+        int deleted = 0;
+        for (ClassEntry entry : previousClasses.values()) {
+            if (entry.output() != null && !outputs.contains(entry.output()) && Files.deleteIfExists(outputDir.resolve(entry.output()))) {
+                deleted++;
+            }
+        }
+        writeManifest(manifestFile, settingsHash, scans, classes);
+        return new Result(generated, skipped, deleted);
+    }
+
+    /**
+     * Mapper 方法的参数类和 includes 匹配的类。内容没有变化的类文件沿用上次的扫描结果，不解析。
+     */
+    private Set<String> findCandidates(ClassIndex index, Map<String, Scan> previousScans, Map<String, Scan> scans) {
+        List<Pattern> includes = settings.includes().stream().map(IncrementalGenerator::toPattern).toList();
+        Set<String> candidates = new TreeSet<>();
+        for (String name : index.getScannedNames()) {
+            String hash = index.hash(name);
+            Scan scan = previousScans.get(name);
+            if (scan == null || !scan.hash().equals(hash)) {
+                ClassIndex.ClassInfo classInfo = index.find(name);
+                scan = new Scan(hash, classInfo != null && isMapper(classInfo) ? mapperArgs(classInfo) : List.of());
+            }
+            scans.put(name, scan);
+            for (String arg : scan.args()) {
+                if (!FieldRules.isJdkType(arg)) {
+                    candidates.add(arg);
+                }
+            }
+            String canonicalName = name.replace('$', '.');
+            if (includes.stream().anyMatch(pattern -> pattern.matcher(canonicalName).matches())) {
+                candidates.add(name);
+            }
+        }
+        return candidates;
+    }
+
+    private static List<String> mapperArgs(ClassIndex.ClassInfo mapper) {
+        Set<String> args = new LinkedHashSet<>();
+        mapper.methodArgs().forEach(args::addAll);
+        return List.copyOf(args);
+    }
+
+    private static boolean isUpToDate(ClassEntry entry, ClassIndex index, Path outputDir) {
+        if (entry.output() != null && !Files.exists(outputDir.resolve(entry.output()))) {
+            return false;
+        }
+        for (Map.Entry<String, String> dependency : entry.dependencies().entrySet()) {
+            if (!dependency.getValue().equals(index.hash(dependency.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ClassEntry generate(String binaryName, ClassIndex index, Path outputDir) throws IOException {
+        // 每个类单独构建，记录到的依赖才完整（共用的模型缓存会跳过对依赖类的查找）
+        BytecodeModelBuilder builder = new BytecodeModelBuilder(index, settings.namingStrategy(), settings.nestedDepth());
+        index.startRecording();
+        String output = null;
+        String text = null;
+        Set<String> accessed;
+        try {
+            ClassIndex.ClassInfo classInfo = index.find(binaryName);
+            if (isQueryClass(classInfo, builder)) {
+                output = classInfo.name() + ".xml";
+                text = render(classInfo, builder.build(classInfo));
+            }
+        } finally {
+            accessed = index.stopRecording();
+        }
+        Map<String, String> dependencies = new TreeMap<>();
+        accessed.forEach(name -> dependencies.put(name, index.hash(name)));
+        if (output != null) {
+            Files.writeString(outputDir.resolve(output), text, StandardCharsets.UTF_8);
+        }
+        return new ClassEntry(output, dependencies);
+    }
+
+    private String render(ClassIndex.ClassInfo parameterClass, ConditionModel model) {
+        String fragment = MybatisSqlGen.generateMyBatisConditions(model.getFields(), settings.tableAlias(), settings.paramPrefix(), settings.dbType(), templates);
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!-- Generated by mybatis-condition from ").append(parameterClass.name()).append(", do not edit -->\n");
+        String simpleName = parameterClass.simpleName();
+        sb.append("<sql id=\"").append(Character.toLowerCase(simpleName.charAt(0))).append(simpleName.substring(1)).append("Condition\">\n");
+        fragment.lines().forEach(line -> sb.append("    ").append(line).append('\n'));
+        sb.append("</sql>\n");
+        MybatisSqlGen.appendNestedFragments(sb, model.getNestedModels(), settings.tableAlias(), settings.dbType(), templates);
+        return sb.toString();
+    }
+
+    /**
+     * 影响输出内容的设置，变化时所有类重新生成。includes 只决定生成哪些类，不在其中。
+     */
+    private String settingsHash() {
+        return Hashes.sha256(String.join("\n", GENERATOR_VERSION, settings.dbType(), settings.tableAlias(), settings.paramPrefix(),
+                settings.namingStrategy().name(), String.valueOf(settings.nestedDepth()), settings.templates().toString()));
+    }
+
+    private static boolean isMapper(ClassIndex.ClassInfo classInfo) {
+        if (!classInfo.isInterface() || classInfo.isAnnotation()) {
+            return false;
+        }
+        String name = classInfo.simpleName();
+        return classInfo.annotations().contains(MAPPER_ANNOTATION) || name.endsWith("Mapper") || name.endsWith("Dao");
+    }
+
+    private static boolean isQueryClass(ClassIndex.ClassInfo classInfo, BytecodeModelBuilder builder) {
+        if (classInfo == null || classInfo.isInterface() || classInfo.isEnum() || classInfo.isAnnotation()) {
+            return false;
+        }
+        return !FieldRules.isJdkType(classInfo.name()) && !builder.getAllFields(classInfo).isEmpty();
+    }
+
+    private static Pattern toPattern(String include) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < include.length(); i++) {
+            char c = include.charAt(i);
+            if (c == '*' && i + 1 < include.length() && include.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^.]*");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * 清单每行一项，字段以空格分隔：
+     * <pre>
+     * # 设置哈希
+     * scan 类 内容哈希 [Mapper 参数类型...]
+     * class 类 输出文件|- [依赖类=内容哈希...]
+     * </pre>
+     * 设置哈希不同或清单损坏时按没有清单处理，全部重新生成。
+     */
+    private static void readManifest(Path manifestFile, String settingsHash, Map<String, Scan> scans, Map<String, ClassEntry> classes) {
+        if (!Files.exists(manifestFile)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(HEADER + " " + settingsHash)) {
+                return;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                String[] parts = line.split(" ");
+                if (parts.length < 3) {
+                    continue;
+                }
+                if (SCAN.equals(parts[0])) {
+                    scans.put(parts[1], new Scan(parts[2], List.of(parts).subList(3, parts.length)));
+                } else if (CLASS.equals(parts[0])) {
+                    Map<String, String> dependencies = new TreeMap<>();
+                    for (int i = 3; i < parts.length; i++) {
+                        int separator = parts[i].lastIndexOf('=');
+                        dependencies.put(parts[i].substring(0, separator), parts[i].substring(separator + 1));
+                    }
+                    classes.put(parts[1], new ClassEntry(NO_OUTPUT.equals(parts[2]) ? null : parts[2], dependencies));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            scans.clear();
+            classes.clear();
+        }
+    }
+
+    private static void writeManifest(Path manifestFile, String settingsHash, Map<String, Scan> scans, Map<String, ClassEntry> classes) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append(' ').append(settingsHash).append('\n');
+        scans.forEach((name, scan) -> {
+            sb.append(SCAN).append(' ').append(name).append(' ').append(scan.hash());
+            scan.args().forEach(arg -> sb.append(' ').append(arg));
+            sb.append('\n');
+        });
+        classes.forEach((name, entry) -> {
+            sb.append(CLASS).append(' ').append(name).append(' ').append(entry.output() == null ? NO_OUTPUT : entry.output());
+            entry.dependencies().forEach((dependency, hash) -> sb.append(' ').append(dependency).append('=').append(hash));
+            sb.append('\n');
+        });
+        Files.writeString(manifestFile, sb, StandardCharsets.UTF_8);
+    }
+}
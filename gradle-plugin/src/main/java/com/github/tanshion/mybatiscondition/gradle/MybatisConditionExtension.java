@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * mybatisCondition { } 配置块，默认值与 IDE 插件的设置相同。
+ */
+public abstract class MybatisConditionExtension {
+
+    public abstract Property<String> getDbType();
+
+    public abstract Property<String> getTableAlias();
+
+    public abstract Property<String> getParamPrefix();
+
+    /**
+     * ColumnNamingStrategy 的名称，例如 SNAKE_CASE、AS_IS。
+     */
+    public abstract Property<String> getNamingStrategy();
+
+    public abstract Property<Integer> getNestedDepth();
+
+    /**
+     * 自定义模板，键为 "模板类型" 或 "数据库:模板类型"，例如 "postgresql:LIKE"。
+     */
+    public abstract MapProperty<String, String> getTemplates();
+
+    /**
+     * 额外生成的类的全限定名，支持 * 和 ** 通配符，例如 "com.example.query.**"。
+     */
+    public abstract ListProperty<String> getIncludes();
+
+    public abstract DirectoryProperty getOutputDirectory();
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import com.github.tanshion.mybatiscondition.ColumnNamingStrategy;
+import com.github.tanshion.mybatiscondition.MybatisSqlGen;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+
+/**
+ * 注册 generateMybatisConditions 任务，输入为 main 源集的编译输出。
+ */
+public class MybatisConditionPlugin implements Plugin<Project> {
+
+    public static final String EXTENSION_NAME = "mybatisCondition";
+    public static final String TASK_NAME = "generateMybatisConditions";
+
+    @Override
+    public void apply(Project project) {
+        MybatisConditionExtension extension = project.getExtensions().create(EXTENSION_NAME, MybatisConditionExtension.class);
+        extension.getDbType().convention(MybatisSqlGen.MYSQL);
+        extension.getTableAlias().convention("t");
+        extension.getParamPrefix().convention("param");
+        extension.getNamingStrategy().convention(ColumnNamingStrategy.SNAKE_CASE.name());
+        extension.getNestedDepth().convention(3);
+        extension.getOutputDirectory().convention(project.getLayout().getBuildDirectory().dir("generated/mybatis-condition"));
+
+        project.getPlugins().withType(JavaPlugin.class, plugin -> {
+            SourceSet main = project.getExtensions().getByType(SourceSetContainer.class).getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+            project.getTasks().register(TASK_NAME, GenerateMybatisConditionsTask.class, generate -> {
+                generate.setGroup("mybatis");
+                generate.setDescription("Generates MyBatis condition fragments for mapper parameter classes.");
+                // classesDirs 自带对 compileJava 的依赖
+                generate.getClassesDirs().from(main.getOutput().getClassesDirs());
+                generate.getClasspath().from(main.getCompileClasspath());
+                generate.getDbType().set(extension.getDbType());
+                generate.getTableAlias().set(extension.getTableAlias());
+                generate.getParamPrefix().set(extension.getParamPrefix());
+                generate.getNamingStrategy().set(extension.getNamingStrategy());
+                generate.getNestedDepth().set(extension.getNestedDepth());
+                generate.getTemplates().set(extension.getTemplates());
+                generate.getIncludes().set(extension.getIncludes());
+                generate.getOutputDirectory().set(extension.getOutputDirectory());
+            });
+        });
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import com.github.tanshion.mybatiscondition.*;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从字节码构建的模型：内部类的规范名、泛型签名还原的类型文本，以及与 IDE 插件期望文件的一致性。
+ */
+public class BytecodeModelBuilderTest extends TestCase {
+
+    // 与 GoldenXmlTest 相同的操作符
+    private static final Map<String, String> COMMON_OPERATIONS = Map.of("email", MybatisSqlGen.STARTS_WITH, "tags", MybatisSqlGen.IN_PADDED);
+    private static final Map<String, Map<String, String>> DIALECT_OPERATIONS = Map.of(
+            MybatisSqlGen.MYSQL, Map.of("userName", MybatisSqlGen.ILIKE),
+            MybatisSqlGen.POSTGRESQL, Map.of("userName", MybatisSqlGen.ILIKE, "roleIds", MybatisSqlGen.IN_ARRAY, "statuses", MybatisSqlGen.NOT_IN_ARRAY),
+            MybatisSqlGen.ORACLE, Map.of("userName", MybatisSqlGen.ILIKE, "roleIds", MybatisSqlGen.IN_CHUNKED));
+
+    private static final String ORDER_QUERY = """
+            package com.example;
+
+            public class OrderQuery {
+                private Long orderId;
+                private Filter filter;
+                private Inner.Deep deep;
+
+                public static class Filter {
+                    private String code;
+                }
+
+                public static class Inner {
+                    public static class Deep {
+                        private Integer level;
+                    }
+                }
+            }
+            """;
+
+    private CompiledSources sources;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sources = new CompiledSources();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            sources.dispose();
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testGoldenMysql() throws IOException {
+        doGoldenTest(MybatisSqlGen.MYSQL);
+    }
+
+    public void testGoldenPostgresql() throws IOException {
+        doGoldenTest(MybatisSqlGen.POSTGRESQL);
+    }
+
+    public void testGoldenOracle() throws IOException {
+        doGoldenTest(MybatisSqlGen.ORACLE);
+    }
+
+    public void testNestedClassCanonicalNames() throws IOException {
+        sources.write("com.example.OrderQuery", ORDER_QUERY).compile();
+        ClassIndex index = sources.newIndex();
+
+        ClassIndex.ClassInfo deep = index.find("com.example.OrderQuery$Inner$Deep");
+        assertEquals("com.example.OrderQuery.Inner.Deep", deep.name());
+        assertEquals("Deep", deep.simpleName());
+        assertSame(deep, index.findByName("com.example.OrderQuery.Inner.Deep"));
+
+        ConditionModel model = newBuilder(index).build(index.find("com.example.OrderQuery"));
+        ConditionField filter = field(model, "filter");
+        assertEquals(FieldKind.NESTED, filter.kind());
+        assertEquals("com.example.OrderQuery.Filter", filter.type());
+        assertEquals("filterNestedCondition", filter.column());
+        assertEquals("com.example.OrderQuery.Inner.Deep", field(model, "deep").type());
+        assertEquals("com.example.OrderQuery.Inner.Deep", model.getNestedModels().get("deepNestedCondition").getQualifiedName());
+    }
+
+    public void testGenericSignatures() throws IOException {
+        sources.write("com.example.OrderQuery", ORDER_QUERY).write("com.example.GenericQuery", """
+                package com.example;
+
+                import java.time.LocalDateTime;
+                import java.util.*;
+
+                public class GenericQuery<T extends Number> {
+                    private List<Long> ids;
+                    private Set<? extends Number> amounts;
+                    private List<LocalDateTime> createTimes;
+                    private List<OrderQuery.Filter> filters;
+                    private Map<String, List<Integer>> groups;
+                    private T value;
+                    private String[] names;
+                    private int count;
+                }
+                """).compile();
+        ClassIndex index = sources.newIndex();
+        ConditionModel model = newBuilder(index).build(index.find("com.example.GenericQuery"));
+
+        assertField(model, "ids", FieldKind.COLLECTION, "java.util.List<java.lang.Long>", "java.lang.Long");
+        assertField(model, "amounts", FieldKind.COLLECTION, "java.util.Set<? extends java.lang.Number>", null);
+        assertField(model, "createTimes", FieldKind.TEMPORAL_COLLECTION, "java.util.List<java.time.LocalDateTime>", "java.time.LocalDateTime");
+        assertField(model, "filters", FieldKind.COLLECTION, "java.util.List<com.example.OrderQuery.Filter>", "com.example.OrderQuery.Filter");
+        assertField(model, "groups", FieldKind.SCALAR, "java.util.Map<java.lang.String,java.util.List<java.lang.Integer>>", null);
+        assertField(model, "value", FieldKind.SCALAR, "T", null);
+        assertField(model, "names", FieldKind.SCALAR, "java.lang.String[]", null);
+        assertField(model, "count", FieldKind.SCALAR, "int", null);
+    }
+
+    /**
+     * 编译 IDE 插件测试用的 UserQuery，用相同的操作符生成，结果应与 PSI 构建的模型相同。
+     */
+    private void doGoldenTest(String dbType) throws IOException {
+        Path goldenDir = Path.of(System.getProperty("goldenDir", "../src/test/testData/golden"));
+        sources.write("com.example.UserQuery", Files.readString(goldenDir.resolve("UserQuery.java"), StandardCharsets.UTF_8)).compile();
+        ClassIndex index = sources.newIndex();
+        ConditionModel model = newBuilder(index).build(index.find("com.example.UserQuery"));
+
+        Map<String, String> operations = new HashMap<>(COMMON_OPERATIONS);
+        operations.putAll(DIALECT_OPERATIONS.get(dbType));
+        String xml = model.generateMyBatisConditions("t", "param", operations, dbType, TemplateRegistry.getDefault());
+        String expected = Files.readString(goldenDir.resolve("UserQuery." + dbType + ".xml"), StandardCharsets.UTF_8);
+        assertEquals(expected.stripTrailing(), xml.stripTrailing());
+    }
+
+    private static BytecodeModelBuilder newBuilder(ClassIndex index) {
+        return new BytecodeModelBuilder(index, ColumnNamingStrategy.SNAKE_CASE, 3);
+    }
+
+    private static void assertField(ConditionModel model, String name, FieldKind kind, String type, String elementType) {
+        ConditionField field = field(model, name);
+        assertEquals(name, kind, field.kind());
+        assertEquals(name, type, field.type());
+        assertEquals(name, elementType, field.elementType());
+    }
+
+    private static ConditionField field(ConditionModel model, String name) {
+        List<ConditionField> fields = model.getFields();
+        return fields.stream().filter(field -> field.name().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No field " + name + " in " + fields));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 临时目录中的一组 Java 源文件，用 javac 编译，作为插件扫描的编译输出。
+ */
+final class CompiledSources {
+
+    private final Path root;
+    private final Path sourceDir;
+    private final Path classesDir;
+
+    CompiledSources() throws IOException {
+        root = Files.createTempDirectory("mybatis-condition");
+        sourceDir = root.resolve("src");
+        classesDir = root.resolve("classes");
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    Path getClassesDir() {
+        return classesDir;
+    }
+
+    /**
+     * @param className 全限定名，源文件按包放置
+     */
+    CompiledSources write(String className, String source) throws IOException {
+        Path file = sourceDir.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        return this;
+    }
+
+    CompiledSources delete(String className) throws IOException {
+        Files.delete(sourceDir.resolve(className.replace('.', '/') + ".java"));
+        return this;
+    }
+
+    /**
+     * 清空编译输出后全部重新编译，删除的源文件不会留下类文件。
+     */
+    Path compile() throws IOException {
+        deleteRecursively(classesDir);
+        Files.createDirectories(classesDir);
+        List<String> args = new ArrayList<>(List.of("-encoding", "UTF-8", "-d", classesDir.toString()));
+        try (Stream<Path> files = Files.walk(sourceDir)) {
+            files.filter(file -> file.toString().endsWith(".java")).forEach(file -> args.add(file.toString()));
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, args.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Compilation failed:\n" + errors.toString(StandardCharsets.UTF_8));
+        }
+        return classesDir;
+    }
+
+    /**
+     * 每次构建都是新的索引，与任务的一次运行相同。
+     */
+    ClassIndex newIndex() {
+        ClassIndex index = new ClassIndex(ClassLoader.getPlatformClassLoader());
+        index.scan(classesDir);
+        return index;
+    }
+
+    void dispose() {
+        deleteRecursively(root);
+    }
+
+    static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import com.github.tanshion.mybatiscondition.ColumnNamingStrategy;
+import com.github.tanshion.mybatiscondition.MybatisSqlGen;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 清单的读写，以及按类文件哈希判断哪些参数类需要重新生成、哪些输出需要删除。
+ */
+public class IncrementalGeneratorTest extends TestCase {
+
+    private static final String MAPPER = """
+            package com.example;
+
+            public interface UserMapper {
+                java.util.List<String> list(UserQuery query);
+
+                int count(OrderQuery query, int limit);
+            }
+            """;
+
+    private CompiledSources sources;
+    private Path outputDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sources = new CompiledSources()
+                .write("com.example.UserMapper", MAPPER)
+                .write("com.example.BaseQuery", "package com.example; public class BaseQuery { private Integer pageNum; }")
+                .write("com.example.UserQuery", "package com.example; public class UserQuery extends BaseQuery { private String userName; private java.util.List<Long> roleIds; }")
+                .write("com.example.OrderQuery", "package com.example; public class OrderQuery { private Long orderId; }")
+                .write("com.example.Unrelated", "package com.example; public class Unrelated { private String name; }");
+        sources.compile();
+        outputDir = sources.getRoot().resolve("generated");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            sources.dispose();
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testFirstRunGeneratesEveryParameterClass() throws IOException {
+        assertEquals(new IncrementalGenerator.Result(2, 0, 0), run(MybatisSqlGen.MYSQL));
+        String xml = output("com.example.UserQuery.xml");
+        assertTrue(xml, xml.startsWith("<!-- Generated by mybatis-condition from com.example.UserQuery, do not edit -->\n<sql id=\"userQueryCondition\">\n"));
+        // 父类的字段
+        assertTrue(xml, xml.contains("t.page_num = #{param.pageNum}"));
+        assertTrue(Files.exists(outputDir.resolve("com.example.OrderQuery.xml")));
+        assertFalse(Files.exists(outputDir.resolve("com.example.Unrelated.xml")));
+    }
+
+    public void testSecondRunSkipsUnchangedClasses() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        String manifest = output(IncrementalGenerator.MANIFEST);
+        sources.write("com.example.Unrelated", "package com.example; public class Unrelated { private String name; private Long id; }").compile();
+
+        assertEquals(new IncrementalGenerator.Result(0, 2, 0), run(MybatisSqlGen.MYSQL));
+        // 只有变化的类文件的扫描记录不同
+        assertEquals(manifest.lines().filter(line -> !line.startsWith("scan com.example.Unrelated ")).toList(),
+                output(IncrementalGenerator.MANIFEST).lines().filter(line -> !line.startsWith("scan com.example.Unrelated ")).toList());
+    }
+
+    public void testSuperclassChangeRegenerates() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        sources.write("com.example.BaseQuery", "package com.example; public class BaseQuery { private Integer pageNum; private Integer pageSize; }").compile();
+
+        assertEquals(new IncrementalGenerator.Result(1, 1, 0), run(MybatisSqlGen.MYSQL));
+        assertTrue(output("com.example.UserQuery.xml").contains("t.page_size = #{param.pageSize}"));
+    }
+
+    public void testRemovedParameterClassDeletesOutput() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        sources.write("com.example.UserMapper", MAPPER.replace("int count(OrderQuery query, int limit);", "")).compile();
+
+        assertEquals(new IncrementalGenerator.Result(0, 1, 1), run(MybatisSqlGen.MYSQL));
+        assertFalse(Files.exists(outputDir.resolve("com.example.OrderQuery.xml")));
+        assertFalse(output(IncrementalGenerator.MANIFEST).contains("class com.example.OrderQuery "));
+    }
+
+    public void testDeletedOutputIsRegenerated() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        Files.delete(outputDir.resolve("com.example.OrderQuery.xml"));
+
+        assertEquals(new IncrementalGenerator.Result(1, 1, 0), run(MybatisSqlGen.MYSQL));
+        assertTrue(Files.exists(outputDir.resolve("com.example.OrderQuery.xml")));
+    }
+
+    public void testManifestRecordsDependencies() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        List<String> lines = output(IncrementalGenerator.MANIFEST).lines().toList();
+        String userQuery = lines.stream().filter(line -> line.startsWith("class com.example.UserQuery ")).findFirst().orElseThrow();
+        String[] parts = userQuery.split(" ");
+        assertEquals("com.example.UserQuery.xml", parts[2]);
+        assertTrue(userQuery, userQuery.contains(" com.example.BaseQuery=" + sources.newIndex().hash("com.example.BaseQuery")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("scan com.example.UserMapper ") && line.endsWith(" com.example.UserQuery com.example.OrderQuery")));
+    }
+
+    public void testSettingsChangeRegeneratesEverything() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        assertEquals(new IncrementalGenerator.Result(2, 0, 0), run(MybatisSqlGen.POSTGRESQL));
+        assertEquals(new IncrementalGenerator.Result(0, 2, 0), run(MybatisSqlGen.POSTGRESQL));
+    }
+
+    public void testCorruptManifestRegeneratesEverything() throws IOException {
+        run(MybatisSqlGen.MYSQL);
+        Path manifest = outputDir.resolve(IncrementalGenerator.MANIFEST);
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        Files.writeString(manifest, lines.get(0) + "\nclass com.example.UserQuery com.example.UserQuery.xml broken\n", StandardCharsets.UTF_8);
+
+        assertEquals(new IncrementalGenerator.Result(2, 0, 0), run(MybatisSqlGen.MYSQL));
+    }
+
+    public void testIncludesMatchCanonicalNames() throws IOException {
+        sources.write("com.example.filter.Filters", """
+                package com.example.filter;
+
+                public class Filters {
+                    public static class StatusFilter {
+                        private Integer status;
+                    }
+                }
+                """).compile();
+        IncrementalGenerator generator = new IncrementalGenerator(settings(MybatisSqlGen.MYSQL, List.of("com.example.filter.Filters.*")));
+
+        assertEquals(new IncrementalGenerator.Result(3, 0, 0), generator.generate(sources.newIndex(), outputDir));
+        assertTrue(output("com.example.filter.Filters.StatusFilter.xml").contains("<sql id=\"statusFilterCondition\">"));
+    }
+
+    private IncrementalGenerator.Result run(String dbType) throws IOException {
+        return new IncrementalGenerator(settings(dbType, List.of())).generate(sources.newIndex(), outputDir);
+    }
+
+    private String output(String fileName) throws IOException {
+        return Files.readString(outputDir.resolve(fileName), StandardCharsets.UTF_8);
+    }
+
+    private static IncrementalGenerator.Settings settings(String dbType, List<String> includes) {
+        return new IncrementalGenerator.Settings(dbType, "t", "param", ColumnNamingStrategy.SNAKE_CASE, 3, new TreeMap<>(), includes);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition.gradle;
+
+import junit.framework.TestCase;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 在临时项目中运行 generateMybatisConditions 任务，检查增量生成。
+ */
+public class MybatisConditionPluginTest extends TestCase {
+
+    private static final String TASK = ":" + MybatisConditionPlugin.TASK_NAME;
+    private static final String OUTPUT = "build/generated/mybatis-condition/com.example.UserQuery.xml";
+
+    private Path projectDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        projectDir = Files.createTempDirectory("mybatis-condition-plugin");
+        write("settings.gradle", "rootProject.name = 'sample'\n");
+        write("build.gradle", """
+                plugins {
+                    id 'java'
+                    id 'com.github.tanshion.mybatis-condition'
+                }
+
+                mybatisCondition {
+                    dbType = 'postgresql'
+                }
+                """);
+        write("src/main/java/com/example/UserMapper.java", "package com.example; public interface UserMapper { int count(UserQuery query); }");
+        write("src/main/java/com/example/BaseQuery.java", "package com.example; public class BaseQuery { private Integer pageNum; }");
+        write("src/main/java/com/example/UserQuery.java", "package com.example; public class UserQuery extends BaseQuery { private String userName; }");
+        write("src/main/java/com/example/Unrelated.java", "package com.example; public class Unrelated { private String name; }");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            CompiledSources.deleteRecursively(projectDir);
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testSecondRunSkipsUnchangedClass() throws IOException {
+        BuildResult first = run();
+        assertEquals(TaskOutcome.SUCCESS, first.task(TASK).getOutcome());
+        assertTrue(first.getOutput(), first.getOutput().contains("MybatisCondition: 1 generated, 0 unchanged, 0 removed"));
+        assertTrue(read(OUTPUT).contains("t.page_num = #{param.pageNum}"));
+
+        assertEquals(TaskOutcome.UP_TO_DATE, run().task(TASK).getOutcome());
+
+        // 其他类变化时任务重新执行，但参数类和它的父类没有变化，不重新生成
+        write("src/main/java/com/example/Unrelated.java", "package com.example; public class Unrelated { private String name; private Long id; }");
+        BuildResult third = run();
+        assertEquals(TaskOutcome.SUCCESS, third.task(TASK).getOutcome());
+        assertTrue(third.getOutput(), third.getOutput().contains("MybatisCondition: 0 generated, 1 unchanged, 0 removed"));
+    }
+
+    public void testSuperclassChangeRegenerates() throws IOException {
+        run();
+        write("src/main/java/com/example/BaseQuery.java", "package com.example; public class BaseQuery { private Integer pageNum; private Integer pageSize; }");
+
+        BuildResult result = run();
+        assertTrue(result.getOutput(), result.getOutput().contains("MybatisCondition: 1 generated, 0 unchanged, 0 removed"));
+        assertTrue(read(OUTPUT).contains("t.page_size = #{param.pageSize}"));
+    }
+
+    private BuildResult run() {
+        return GradleRunner.create()
+                .withProjectDir(projectDir.toFile())
+                .withArguments(MybatisConditionPlugin.TASK_NAME, "--stacktrace")
+                .withPluginClasspath()
+                .build();
+    }
+
+    private void write(String path, String text) throws IOException {
+        Path file = projectDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+    }
+
+    private String read(String path) throws IOException {
+        return Files.readString(projectDir.resolve(path), StandardCharsets.UTF_8);
+    }
+}
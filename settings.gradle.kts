@@ -5,4 +5,6 @@ pluginManagement {
     }
 }
 
-rootProject.name = "mybatis-condition"
\ No newline at end of file
+rootProject.name = "mybatis-condition"
+
+include("gradle-plugin")
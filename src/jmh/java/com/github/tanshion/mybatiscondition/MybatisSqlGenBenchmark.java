@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MybatisSqlGenBenchmark {
+
+    // 嵌套对象只输出 <include>，不经过条件模板，不参与测量
+    private static final FieldKind[] KINDS = Arrays.stream(FieldKind.values()).filter(kind -> kind != FieldKind.NESTED).toArray(FieldKind[]::new);
+
+    @Param({"10", "100", "1000"})
+    public int fieldCount;
+
+    @Param({MybatisSqlGen.MYSQL, MybatisSqlGen.POSTGRESQL, MybatisSqlGen.ORACLE})
+    public String dbType;
+
+    private List<ConditionField> fields;
+    private ConditionFragment fragment;
+
+    @Setup
+    public void setUp() {
+        fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            FieldKind kind = KINDS[i % KINDS.length];
+            String[] operations = kind.getOperations(dbType);
+            // 同一类型的字段依次使用该数据库上的每个操作符，包括 IN_ARRAY、IN_CHUNKED 等方言专用的写法
+            fields.add(ConditionField.of("someFieldName" + i + "CreateTime", kind).withOperator(operations[i / KINDS.length % operations.length]));
+        }
+        fragment = new ConditionFragment(fields, "t", "param", dbType, TemplateRegistry.getDefault());
+    }
+
+    @Benchmark
+    public String generateMyBatisConditions() {
+        return MybatisSqlGen.generateMyBatisConditions(fields, "t", "param", dbType);
+    }
+
+    @Benchmark
+    public String renderFragment() {
+        return new ConditionFragment(fields, "t", "param", dbType, TemplateRegistry.getDefault()).getText();
+    }
+
+    @Benchmark
+    public List<ConditionFragment.Edit> changeOneOperation(EditState state) {
+        return state.next();
+    }
+
+    @Benchmark
+    public void toUnderlineCase(Blackhole blackhole) {
+        for (ConditionField field : fields) {
+            blackhole.consume(StrUtil.toUnderlineCase(field.name()));
+        }
+    }
+
+    /**
+     * 每个线程修改自己的片段副本。只挑选换操作符后生成文本确实不同的字段，每次都换成另一个操作符，每次修改都会重新生成分段。
+     */
+    @State(Scope.Thread)
+    public static class EditState {
+        private ConditionFragment fragment;
+        private String[] names;
+        private String[][] operations;
+        private int[] current;
+        private int editIndex;
+
+        @Setup
+        public void setUp(MybatisSqlGenBenchmark benchmark) {
+            fragment = benchmark.fragment.copy();
+            List<String> editableNames = new ArrayList<>();
+            List<String[]> editableOperations = new ArrayList<>();
+            for (ConditionField field : benchmark.fields) {
+                String[] distinct = distinctOperations(field, benchmark.dbType);
+                if (distinct.length > 1) {
+                    editableNames.add(field.name());
+                    editableOperations.add(distinct);
+                }
+            }
+            names = editableNames.toArray(new String[0]);
+            operations = editableOperations.toArray(new String[0][]);
+            current = new int[names.length];
+            editIndex = 0;
+        }
+
+        List<ConditionFragment.Edit> next() {
+            int i = editIndex;
+            editIndex = i + 1 == names.length ? 0 : i + 1;
+            current[i] = current[i] + 1 == operations[i].length ? 0 : current[i] + 1;
+            return fragment.setOperation(names[i], operations[i][current[i]]);
+        }
+
+        /**
+         * 当前操作符在第一位，其余操作符中生成文本与前面重复的（例如在该数据库上回退为 IN 的）不计入。
+         */
+        private static String[] distinctOperations(ConditionField field, String dbType) {
+            List<String> result = new ArrayList<>();
+            Set<String> texts = new HashSet<>();
+            List<String> candidates = new ArrayList<>(List.of(field.operator()));
+            candidates.addAll(List.of(field.kind().getOperations(dbType)));
+            for (String operation : candidates) {
+                StringBuilder text = new StringBuilder();
+                MybatisSqlGen.appendCondition(text, field.withOperator(operation), "t", "param", dbType, TemplateRegistry.getDefault());
+                if (texts.add(text.toString())) {
+                    result.add(operation);
+                }
+            }
+            return result.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成多行 INSERT 和 upsert 语句：MySQL ON DUPLICATE KEY UPDATE、PostgreSQL ON CONFLICT、
+ * Oracle INSERT ALL / MERGE。一条语句的行数受各数据库的绑定参数或列数上限约束，附带一段按行数分批调用的 Java 代码。
+ */
+public final class BatchInsertGen {
+
+    // MySQL 预编译语句的参数个数是 16 位无符号数
+    public static final int MAX_BIND_PARAMETERS = 65535;
+    // pgjdbc 42.4.0 之前参数个数按 short 传递；Oracle MERGE 的 UNION ALL 过长时解析很慢，取同样的保守值
+    public static final int MAX_BIND_PARAMETERS_POSTGRESQL = 32767;
+    public static final int MAX_BIND_PARAMETERS_ORACLE = 32767;
+    // Oracle INSERT ALL 所有 INTO 子句的列数合计超过 1000 时报 ORA-24335
+    public static final int MAX_INSERT_ALL_COLUMNS = 999;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private BatchInsertGen() {
+    }
+
+    /**
+     * 每个列一个参数时单条语句最多能插入的行数。
+     */
+    public static int maxBatchSize(int columnCount, boolean upsert, String dbType) {
+        int columns = Math.max(columnCount, 1);
+        return switch (dbType == null ? "" : dbType) {
+            case MybatisSqlGen.ORACLE -> upsert ? MAX_BIND_PARAMETERS_ORACLE / columns : Math.max(MAX_INSERT_ALL_COLUMNS / columns, 1);
+            case MybatisSqlGen.POSTGRESQL -> MAX_BIND_PARAMETERS_POSTGRESQL / columns;
+            default -> MAX_BIND_PARAMETERS / columns;
+        };
+    }
+
+    /**
+     * 可插入的字段：排除集合和起止字段，同一列只保留第一个字段。
+     */
+    public static List<ConditionField> insertableFields(List<ConditionField> fields) {
+        Map<String, ConditionField> byColumn = new LinkedHashMap<>();
+        for (ConditionField field : fields) {
+            switch (field.kind()) {
+                case STRING, BOOLEAN, SCALAR -> byColumn.putIfAbsent(TableSchema.normalize(field.column()), field);
+                default -> {
+                }
+            }
+        }
+        return new ArrayList<>(byColumn.values());
+    }
+
+    /**
+     * @param keyColumns 冲突判断使用的唯一键列，upsert 时不更新这些列
+     * @param batchSize  每条语句的行数，用于生成分批调用代码
+     */
+    public static String generate(List<ConditionField> fields, String tableName, List<String> keyColumns, boolean upsert, int batchSize, String dbType) {
+        List<ConditionField> columns = insertableFields(fields);
+        if (columns.isEmpty()) {
+            return "";
+        }
+        List<ConditionField> updates = new ArrayList<>(columns.size());
+        for (ConditionField field : columns) {
+            if (!keyColumns.contains(TableSchema.normalize(field.column()))) {
+                updates.add(field);
+            }
+        }
+        String statementId = upsert ? "batchUpsert" : "batchInsert";
+        StringBuilder sb = new StringBuilder(512 + columns.size() * 96);
+        sb.append("<insert id=\"").append(statementId).append("\">\n");
+        if (MybatisSqlGen.ORACLE.equals(dbType)) {
+            if (upsert) {
+                appendOracleMerge(sb, columns, updates, tableName, keyColumns);
+            } else {
+                appendOracleInsertAll(sb, columns, tableName);
+            }
+        } else {
+            appendMultiRowInsert(sb, columns, tableName);
+            if (upsert && updates.isEmpty()) {
+                if (MybatisSqlGen.POSTGRESQL.equals(dbType)) {
+                    sb.append("    ON CONFLICT (").append(String.join(", ", keyColumns)).append(") DO NOTHING\n");
+                } else {
+                    // 所有列都是键列时没有可更新的列，用无副作用的赋值跳过重复行；INSERT IGNORE 会把其他错误也降级为警告
+                    String key = columns.get(0).column();
+                    sb.append("    ON DUPLICATE KEY UPDATE\n")
+                            .append("        ").append(key).append(" = ").append(key).append('\n');
+                }
+            } else if (upsert) {
+                if (MybatisSqlGen.POSTGRESQL.equals(dbType)) {
+                    sb.append("    ON CONFLICT (").append(String.join(", ", keyColumns)).append(") DO UPDATE SET\n");
+                    appendAssignments(sb, updates, "EXCLUDED.", "");
+                } else {
+                    // VALUES() 在 MySQL 8.0.20 起标记为过时，但 5.7 和 8.x 都可用
+                    sb.append("    ON DUPLICATE KEY UPDATE\n");
+                    appendAssignments(sb, updates, "VALUES(", ")");
+                }
+            }
+        }
+        sb.append("</insert>\n\n");
+        appendBatchHelper(sb, statementId, columns.size(), batchSize, maxBatchSize(columns.size(), upsert, dbType), limitReason(upsert, dbType));
+        return sb.toString();
+    }
+
+    private static void appendMultiRowInsert(StringBuilder sb, List<ConditionField> columns, String tableName) {
+        sb.append("    INSERT INTO ").append(tableName).append(" (").append(columnList(columns)).append(")\n")
+                .append("    VALUES\n")
+                .append("    <foreach collection=\"list\" item=\"item\" separator=\",\">\n")
+                .append("        (").append(valueList(columns)).append(")\n")
+                .append("    </foreach>\n");
+    }
+
+    private static void appendOracleInsertAll(StringBuilder sb, List<ConditionField> columns, String tableName) {
+        sb.append("    INSERT ALL\n")
+                .append("    <foreach collection=\"list\" item=\"item\">\n")
+                .append("        INTO ").append(tableName).append(" (").append(columnList(columns)).append(") VALUES (").append(valueList(columns)).append(")\n")
+                .append("    </foreach>\n")
+                .append("    SELECT 1 FROM DUAL\n");
+    }
+
+    private static void appendOracleMerge(StringBuilder sb, List<ConditionField> columns, List<ConditionField> updates, String tableName, List<String> keyColumns) {
+        sb.append("    MERGE INTO ").append(tableName).append(" t\n")
+                .append("    USING (\n")
+                .append("        <foreach collection=\"list\" item=\"item\" separator=\" UNION ALL \">\n")
+                .append("            SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            ConditionField field = columns.get(i);
+            sb.append(i == 0 ? "" : ", ").append("#{item.").append(field.name()).append("} AS ").append(field.column());
+        }
+        sb.append(" FROM DUAL\n")
+                .append("        </foreach>\n")
+                .append("    ) s\n")
+                .append("    ON (");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            sb.append(i == 0 ? "" : " AND ").append("t.").append(keyColumns.get(i)).append(" = s.").append(keyColumns.get(i));
+        }
+        sb.append(")\n");
+        if (!updates.isEmpty()) {
+            sb.append("    WHEN MATCHED THEN UPDATE SET\n");
+            appendAssignments(sb, updates, "s.", "");
+        }
+        sb.append("    WHEN NOT MATCHED THEN INSERT (").append(columnList(columns)).append(")\n")
+                .append("        VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "" : ", ").append("s.").append(columns.get(i).column());
+        }
+        sb.append(")\n");
+    }
+
+    private static void appendAssignments(StringBuilder sb, List<ConditionField> updates, String prefix, String suffix) {
+        for (int i = 0; i < updates.size(); i++) {
+            String column = updates.get(i).column();
+            sb.append("        ").append(column).append(" = ").append(prefix).append(column).append(suffix)
+                    .append(i < updates.size() - 1 ? ",\n" : "\n");
+        }
+    }
+
+    private static String limitReason(boolean upsert, String dbType) {
+        return switch (dbType == null ? "" : dbType) {
+            case MybatisSqlGen.ORACLE -> upsert ? MAX_BIND_PARAMETERS_ORACLE + " bind parameters per MERGE"
+                    : MAX_INSERT_ALL_COLUMNS + " columns across the INTO clauses of an INSERT ALL, ORA-24335";
+            case MybatisSqlGen.POSTGRESQL -> MAX_BIND_PARAMETERS_POSTGRESQL + " bind parameters on pgjdbc before 42.4.0";
+            default -> MAX_BIND_PARAMETERS + " bind parameters";
+        };
+    }
+
+    private static void appendBatchHelper(StringBuilder sb, String statementId, int columnCount, int batchSize, int maxBatchSize, String limitReason) {
+        int size = Math.min(batchSize, maxBatchSize);
+        sb.append("<!--\n")
+                .append("    ").append(columnCount).append(" bind parameters per row, at most ").append(maxBatchSize)
+                .append(" rows per statement (limit: ").append(limitReason).append(").\n\n")
+                .append("    private static final int BATCH_SIZE = ").append(size).append(";\n\n")
+                .append("    public void ").append(statementId).append("(List<T> rows) {\n")
+                .append("        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {\n")
+                .append("            mapper.").append(statementId).append("(rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("-->\n");
+    }
+
+    private static String columnList(List<ConditionField> columns) {
+        StringBuilder sb = new StringBuilder(columns.size() * 16);
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "" : ", ").append(columns.get(i).column());
+        }
+        return sb.toString();
+    }
+
+    private static String valueList(List<ConditionField> columns) {
+        StringBuilder sb = new StringBuilder(columns.size() * 24);
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "" : ", ").append("#{item.").append(columns.get(i).name()).append('}');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.psi.*;
+import com.intellij.psi.util.InheritanceUtil;
+
+/**
+ * 从光标位置向上只遍历一次语法树，对遇到的第一个可识别节点解析出对应的 PsiClass。
+ */
+public final class CaretClassResolver {
+
+    private CaretClassResolver() {
+    }
+
+    public static PsiClass resolve(PsiElement elementAtCaret) {
+        for (PsiElement element = elementAtCaret; element != null && !(element instanceof PsiFile); element = element.getParent()) {
+            PsiClass psiClass = resolveElement(element);
+            if (psiClass != null) {
+                return psiClass;
+            }
+            // 光标在类名上时使用该类
+            if (element instanceof PsiClass declaredClass && declaredClass.getNameIdentifier() == elementAtCaret) {
+                return declaredClass;
+            }
+        }
+        return null;
+    }
+
+    private static PsiClass resolveElement(PsiElement element) {
+        if (element instanceof PsiTypeElement typeElement) {
+            return resolveType(typeElement.getType());
+        } else if (element instanceof PsiVariable variable) {
+            // PsiParameter、PsiField、PsiLocalVariable
+            return resolveType(variable.getType());
+        } else if (element instanceof PsiMethod method) {
+            return resolveType(method.getReturnType());
+        } else if (element instanceof PsiMethodCallExpression methodCallExpression) {
+            PsiMethod method = methodCallExpression.resolveMethod();
+            return method == null ? null : method.getContainingClass();
+        } else if (element instanceof PsiJavaCodeReferenceElement referenceElement) {
+            // 只处理引用到类的情况，引用到方法、变量的继续向上查找
+            return referenceElement.resolve() instanceof PsiClass psiClass ? psiClass : null;
+        } else if (element instanceof PsiNewExpression newExpression) {
+            return resolveType(newExpression.getType());
+        } else if (element instanceof PsiClassObjectAccessExpression classObjectAccessExpression) {
+            return resolveType(classObjectAccessExpression.getOperand().getType());
+        } else if (element instanceof PsiInstanceOfExpression instanceOfExpression) {
+            PsiTypeElement checkType = instanceOfExpression.getCheckType();
+            return checkType == null ? null : resolveType(checkType.getType());
+        } else if (element instanceof PsiThrowStatement throwStatement) {
+            PsiExpression exception = throwStatement.getException();
+            return exception instanceof PsiNewExpression ? resolveType(exception.getType()) : null;
+        } else if (element instanceof PsiCatchSection catchSection) {
+            PsiParameter parameter = catchSection.getParameter();
+            return parameter == null ? null : resolveType(parameter.getType());
+        } else if (element instanceof PsiAnnotation annotation) {
+            PsiJavaCodeReferenceElement referenceElement = annotation.getNameReferenceElement();
+            return referenceElement != null && referenceElement.resolve() instanceof PsiClass psiClass ? psiClass : null;
+        } else if (element instanceof PsiLambdaExpression lambdaExpression) {
+            return resolveType(lambdaExpression.getFunctionalInterfaceType());
+        }
+        return null;
+    }
+
+    private static PsiClass resolveType(PsiType type) {
+        return unwrap(type) instanceof PsiClassType classType ? classType.resolve() : null;
+    }
+
+    /**
+     * 取出数组、集合、Optional、Stream 的元素类型，例如 List&lt;UserDTO&gt; 返回 UserDTO。
+     */
+    private static PsiType unwrap(PsiType type) {
+        while (true) {
+            if (type instanceof PsiArrayType arrayType) {
+                type = arrayType.getComponentType();
+            } else if (type instanceof PsiClassType classType && classType.getParameterCount() == 1 && isContainer(classType)) {
+                type = classType.getParameters()[0];
+                if (type instanceof PsiWildcardType wildcardType) {
+                    type = wildcardType.getExtendsBound();
+                }
+            } else {
+                return type;
+            }
+        }
+    }
+
+    private static boolean isContainer(PsiClassType classType) {
+        return InheritanceUtil.isInheritor(classType, CommonClassNames.JAVA_LANG_ITERABLE)
+                || classType.rawType().equalsToText(CommonClassNames.JAVA_UTIL_OPTIONAL)
+                || classType.rawType().equalsToText(CommonClassNames.JAVA_UTIL_STREAM_STREAM);
+    }
+}
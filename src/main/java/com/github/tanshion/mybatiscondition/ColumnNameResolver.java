@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.codeInsight.AnnotationUtil;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+
+/**
+ * 解析字段对应的列名：优先使用 MyBatis-Plus / JPA / Jackson 注解中声明的名称，
+ * 没有注解时按命名策略转换字段名。注解解析结果按字段缓存，PSI 修改后失效。
+ */
+public final class ColumnNameResolver {
+
+    private static final Key<CachedValue<String>> ANNOTATED_COLUMN_KEY = Key.create("mybatis.condition.annotatedColumn");
+
+    private ColumnNameResolver() {
+    }
+
+    public static String resolve(PsiField field, ColumnNamingStrategy namingStrategy) {
+        return resolve(field, namingStrategy, field.getName());
+    }
+
+    /**
+     * 没有注解时按命名策略转换 name，用于起止字段对应同一列的情况。
+     */
+    public static String resolve(PsiField field, ColumnNamingStrategy namingStrategy, String name) {
+        String column = CachedValuesManager.getCachedValue(field, ANNOTATED_COLUMN_KEY, () -> CachedValueProvider.Result.create(
+                findAnnotatedColumn(field), PsiModificationTracker.getInstance(field.getProject())));
+        return column != null ? column : namingStrategy.apply(name);
+    }
+
+    private static String findAnnotatedColumn(PsiField field) {
+        for (String[] columnAnnotation : FieldRules.COLUMN_ANNOTATIONS) {
+            PsiAnnotation annotation = field.getAnnotation(columnAnnotation[0]);
+            if (annotation == null) {
+                continue;
+            }
+            String column = AnnotationUtil.getStringAttributeValue(annotation, columnAnnotation[1]);
+            if (!StrUtil.isBlank(column)) {
+                return column.trim();
+            }
+        }
+        return null;
+    }
+}
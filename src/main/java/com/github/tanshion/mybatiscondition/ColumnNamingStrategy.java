@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.Locale;
+
+public enum ColumnNamingStrategy {
+    SNAKE_CASE {
+        @Override
+        public String apply(String fieldName) {
+            return StrUtil.toUnderlineCase(fieldName);
+        }
+    },
+    UPPER_SNAKE_CASE {
+        @Override
+        public String apply(String fieldName) {
+            return StrUtil.toUnderlineCase(fieldName).toUpperCase(Locale.ROOT);
+        }
+    },
+    LOWER_CASE {
+        @Override
+        public String apply(String fieldName) {
+            return fieldName.toLowerCase(Locale.ROOT);
+        }
+    },
+    AS_IS {
+        @Override
+        public String apply(String fieldName) {
+            return fieldName;
+        }
+    };
+
+    public abstract String apply(String fieldName);
+
+    public static ColumnNamingStrategy of(String name) {
+        for (ColumnNamingStrategy strategy : values()) {
+            if (strategy.name().equals(name)) {
+                return strategy;
+            }
+        }
+        return SNAKE_CASE;
+    }
+}
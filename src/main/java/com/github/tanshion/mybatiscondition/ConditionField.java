@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+/**
+ * 与 PSI 无关的字段模型，从 PsiField 解析一次后即可在任意线程中用于生成。
+ *
+ * @param name        字段名，也是参数属性名
+ * @param column      列名；嵌套对象字段为该类型 &lt;sql&gt; 片段的 id
+ * @param kind        字段分类
+ * @param type        字段类型的规范文本，例如 java.util.List&lt;java.lang.Long&gt;，未知时为 null；嵌套对象字段为类的全限定名
+ * @param elementType 集合元素类型的全限定名，非集合字段为 null
+ * @param operator    当前选择的操作符
+ */
+public record ConditionField(String name, String column, FieldKind kind, String type, String elementType, String operator) {
+
+    public static ConditionField of(String name, FieldKind kind) {
+        return new ConditionField(name, StrUtil.toUnderlineCase(name), kind, null, null, kind.getDefaultOperation());
+    }
+
+    public ConditionField withOperator(String operator) {
+        return new ConditionField(name, column, kind, type, elementType, operator);
+    }
+}
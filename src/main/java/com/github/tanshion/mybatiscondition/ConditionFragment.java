@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.*;
+
+/**
+ * 按字段分段保存生成结果。单个字段的操作符、表别名、参数前缀或数据库类型变化时，
+ * 只重新生成受影响的分段，并返回可直接应用到文档上的局部替换。
+ * 有嵌套对象时，各类型的 &lt;sql&gt; 片段作为最后一个分段。
+ */
+public class ConditionFragment {
+
+    private final ConditionField[] fields;
+    private final Map<String, int[]> fieldIndexes;
+    private final Map<String, ConditionModel> nestedModels;
+    private final String[] segments;
+    private final int[] offsets;
+    private String tableAlias;
+    private String paramPrefix;
+    private String dbType;
+    private final TemplateRegistry templates;
+    private int length;
+
+    public ConditionFragment(List<ConditionField> fields, String tableAlias, String paramPrefix, String dbType, TemplateRegistry templates) {
+        this(fields, Map.of(), tableAlias, paramPrefix, dbType, templates);
+    }
+
+    public ConditionFragment(List<ConditionField> fields, Map<String, ConditionModel> nestedModels, String tableAlias, String paramPrefix,
+                             String dbType, TemplateRegistry templates) {
+        this.fields = fields.toArray(new ConditionField[0]);
+        this.fieldIndexes = indexByName(this.fields);
+        this.nestedModels = nestedModels;
+        this.tableAlias = tableAlias;
+        this.paramPrefix = paramPrefix;
+        this.dbType = dbType;
+        this.templates = templates;
+        int segmentCount = this.fields.length + (nestedModels.isEmpty() ? 0 : 1);
+        this.segments = new String[segmentCount];
+        this.offsets = new int[segmentCount];
+        for (int i = 0; i < segments.length; i++) {
+            offsets[i] = length;
+            segments[i] = render(i);
+            length += segments[i].length();
+        }
+    }
+
+    private ConditionFragment(ConditionFragment other) {
+        this.fields = other.fields.clone();
+        this.fieldIndexes = other.fieldIndexes;
+        this.nestedModels = other.nestedModels;
+        this.tableAlias = other.tableAlias;
+        this.paramPrefix = other.paramPrefix;
+        this.dbType = other.dbType;
+        this.templates = other.templates;
+        this.segments = other.segments.clone();
+        this.offsets = other.offsets.clone();
+        this.length = other.length;
+    }
+
+    public ConditionFragment copy() {
+        return new ConditionFragment(this);
+    }
+
+    public String getText() {
+        StringBuilder text = new StringBuilder(length);
+        for (String segment : segments) {
+            text.append(segment);
+        }
+        return text.toString();
+    }
+
+    public List<Edit> setOperation(String fieldName, String operation) {
+        int[] indexes = fieldIndexes.getOrDefault(fieldName, new int[0]);
+        for (int i : indexes) {
+            fields[i] = fields[i].withOperator(operation);
+        }
+        return rerender(indexes);
+    }
+
+    public List<Edit> setTableAlias(String tableAlias) {
+        if (Objects.equals(this.tableAlias, tableAlias)) {
+            return List.of();
+        }
+        this.tableAlias = tableAlias;
+        return rerenderAll();
+    }
+
+    public List<Edit> setParamPrefix(String paramPrefix) {
+        if (Objects.equals(this.paramPrefix, paramPrefix)) {
+            return List.of();
+        }
+        this.paramPrefix = paramPrefix;
+        return rerenderAll();
+    }
+
+    public List<Edit> setDbType(String dbType) {
+        if (Objects.equals(this.dbType, dbType)) {
+            return List.of();
+        }
+        this.dbType = dbType;
+        return rerenderAll();
+    }
+
+    private List<Edit> rerenderAll() {
+        int[] indexes = new int[segments.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        return rerender(indexes);
+    }
+
+    /**
+     * 重新生成指定分段，返回按偏移量倒序排列的替换，按顺序应用时前面的偏移量不受影响。
+     */
+    private List<Edit> rerender(int[] indexes) {
+        List<Edit> edits = new ArrayList<>();
+        int firstChanged = -1;
+        for (int i : indexes) {
+            String segment = render(i);
+            if (segment.equals(segments[i])) {
+                continue;
+            }
+            edits.add(new Edit(offsets[i], offsets[i] + segments[i].length(), segment));
+            length += segment.length() - segments[i].length();
+            segments[i] = segment;
+            if (firstChanged < 0) {
+                firstChanged = i;
+            }
+        }
+        if (firstChanged >= 0) {
+            for (int i = firstChanged + 1; i < segments.length; i++) {
+                offsets[i] = offsets[i - 1] + segments[i - 1].length();
+            }
+        }
+        Collections.reverse(edits);
+        return edits;
+    }
+
+    private String render(int index) {
+        StringBuilder segment = new StringBuilder(128);
+        if (index == fields.length) {
+            MybatisSqlGen.appendNestedFragments(segment, nestedModels, tableAlias, dbType, templates);
+            return segment.toString();
+        }
+        MybatisSqlGen.appendCondition(segment, fields[index], tableAlias, paramPrefix, dbType, templates);
+        return segment.toString();
+    }
+
+    private static Map<String, int[]> indexByName(ConditionField[] fields) {
+        Map<String, int[]> indexes = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            int[] existing = indexes.get(fields[i].name());
+            int[] updated = existing == null ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+            updated[updated.length - 1] = i;
+            indexes.put(fields[i].name(), updated);
+        }
+        return indexes;
+    }
+
+    public record Edit(int start, int end, String text) {
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个参数类的不可变字段快照，同时记住最近一次生成的片段，相同选项重复生成时直接复用。
+ */
+public final class ConditionModel {
+
+    private final String qualifiedName;
+    private final List<ConditionField> fields;
+    // 嵌套对象类型的字段模型，键为 <sql> id，按首次出现的顺序
+    private final Map<String, ConditionModel> nestedModels;
+    private volatile Rendered lastRendered;
+
+    public ConditionModel(String qualifiedName, List<ConditionField> fields) {
+        this(qualifiedName, fields, Map.of());
+    }
+
+    public ConditionModel(String qualifiedName, List<ConditionField> fields, Map<String, ConditionModel> nestedModels) {
+        this.qualifiedName = qualifiedName;
+        this.fields = List.copyOf(fields);
+        this.nestedModels = Collections.unmodifiableMap(new LinkedHashMap<>(nestedModels));
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    public List<ConditionField> getFields() {
+        return fields;
+    }
+
+    public Map<String, ConditionModel> getNestedModels() {
+        return nestedModels;
+    }
+
+    /**
+     * 按给定顺序重新排列字段，字段集合不变。
+     */
+    public ConditionModel reorder(List<ConditionField> orderedFields) {
+        Map<String, ConditionField> byName = new HashMap<>();
+        for (ConditionField field : fields) {
+            byName.put(field.name(), field);
+        }
+        List<ConditionField> result = new ArrayList<>(fields.size());
+        for (ConditionField field : orderedFields) {
+            result.add(byName.get(field.name()));
+        }
+        return result.equals(fields) ? this : new ConditionModel(qualifiedName, result, nestedModels);
+    }
+
+    public String generateMyBatisConditions(String tableAlias, String paramPrefix, Map<String, String> fieldOperation, String dbType, TemplateRegistry templates) {
+        return createFragment(tableAlias, paramPrefix, fieldOperation, dbType, templates).getText();
+    }
+
+    public ConditionFragment createFragment(String tableAlias, String paramPrefix, Map<String, String> fieldOperation, String dbType, TemplateRegistry templates) {
+        RenderKey key = new RenderKey(tableAlias, paramPrefix, new HashMap<>(fieldOperation), dbType, templates);
+        Rendered last = lastRendered;
+        if (last != null && last.key().equals(key)) {
+            return last.fragment().copy();
+        }
+        ConditionFragment fragment = new ConditionFragment(withOperations(fieldOperation), nestedModels, tableAlias, paramPrefix, dbType, templates);
+        lastRendered = new Rendered(key, fragment.copy());
+        return fragment;
+    }
+
+    private List<ConditionField> withOperations(Map<String, String> fieldOperation) {
+        List<ConditionField> result = new ArrayList<>(fields.size());
+        for (ConditionField field : fields) {
+            String operation = fieldOperation.get(field.name());
+            result.add(operation == null ? field : field.withOperator(operation));
+        }
+        return result;
+    }
+
+    private record RenderKey(String tableAlias, String paramPrefix, Map<String, String> fieldOperation, String dbType, TemplateRegistry templates) {
+    }
+
+    private record Rendered(RenderKey key, ConditionFragment fragment) {
+    }
+}
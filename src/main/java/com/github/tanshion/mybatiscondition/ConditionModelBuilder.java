@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.psi.util.PsiUtilCore;
+
+import java.util.*;
+
+/**
+ * 从 PsiClass 构建 {@link ConditionModel}，按类缓存，PSI 发生修改后自动失效。
+ * 嵌套的查询对象字段由 {@link NestedModelResolver} 按设置的层数展开。
+ */
+public final class ConditionModelBuilder {
+
+    private static final Key<CachedValue<ConditionModel>> MODEL_KEY = Key.create("mybatis.condition.model");
+    // 单个类自身的字段，嵌套对象字段尚未展开，多个根类之间共用
+    private static final Key<CachedValue<ConditionModel>> CLASS_MODEL_KEY = Key.create("mybatis.condition.classModel");
+
+    private ConditionModelBuilder() {
+    }
+
+    public static ConditionModel build(PsiClass psiClass) {
+        MybatisConditionSettings settings = MybatisConditionSettings.getInstance(psiClass.getProject());
+        GenerationStats stats = GenerationStats.getInstance();
+        try (GenerationStats.Timer ignored = stats.start(GenerationStats.Phase.MODEL_LOOKUP)) {
+            return CachedValuesManager.getCachedValue(psiClass, MODEL_KEY, () -> CachedValueProvider.Result.create(
+                    createModel(psiClass, settings, stats),
+                    PsiModificationTracker.getInstance(psiClass.getProject()), ProjectRootModificationTracker.getInstance(psiClass.getProject()),
+                    settings.getModificationTracker()));
+        }
+    }
+
+    private static ConditionModel createModel(PsiClass psiClass, MybatisConditionSettings settings, GenerationStats stats) {
+        // 缓存未命中时才会执行到这里，类型解析的耗时都计入 MODEL_BUILD
+        try (GenerationStats.Timer ignored = stats.start(GenerationStats.Phase.MODEL_BUILD, psiClass.getQualifiedName())) {
+            GlobalSearchScope scope = psiClass.getResolveScope();
+            JavaPsiFacade facade = JavaPsiFacade.getInstance(psiClass.getProject());
+            ConditionModel model = new NestedModelResolver(settings.getNestedDepth(), type -> {
+                PsiClass nestedClass = facade.findClass(type, scope);
+                return nestedClass == null ? null : getClassModel(nestedClass, settings);
+            }).resolve(getClassModel(psiClass, settings));
+            stats.recordFields(model.getFields().size());
+            return model;
+        }
+    }
+
+    private static ConditionModel getClassModel(PsiClass psiClass, MybatisConditionSettings settings) {
+        return CachedValuesManager.getCachedValue(psiClass, CLASS_MODEL_KEY, () -> CachedValueProvider.Result.create(
+                createClassModel(psiClass, settings.getNamingStrategy()),
+                // 嵌套对象的判断依赖类是否在项目内容中
+                PsiModificationTracker.getInstance(psiClass.getProject()), ProjectRootModificationTracker.getInstance(psiClass.getProject()),
+                settings.getModificationTracker()));
+    }
+
+    private static ConditionModel createClassModel(PsiClass psiClass, ColumnNamingStrategy namingStrategy) {
+        Project project = psiClass.getProject();
+        // Collection 只解析一次，避免每个字段都 findClass
+        PsiClass collectionClass = JavaPsiFacade.getInstance(project).findClass(CommonClassNames.JAVA_UTIL_COLLECTION, GlobalSearchScope.allScope(project));
+        PsiField[] allFields = psiClass.getAllFields();
+        // 时间和数值类型的字段才参与起止字段配对
+        List<String> rangeCandidates = new ArrayList<>();
+        for (PsiField field : allFields) {
+            String typeText = field.getType().getCanonicalText();
+            if (FieldRules.isRangeType(typeText)) {
+                rangeCandidates.add(field.getName());
+            }
+        }
+        Map<String, RangeFields.Bound> bounds = RangeFields.pair(rangeCandidates);
+        List<ConditionField> fields = new ArrayList<>(allFields.length);
+        for (PsiField field : allFields) {
+            RangeFields.Bound bound = bounds.get(field.getName());
+            if (bound != null) {
+                FieldKind kind = bound.start() ? FieldKind.RANGE_START : FieldKind.RANGE_END;
+                fields.add(new ConditionField(field.getName(), ColumnNameResolver.resolve(field, namingStrategy, bound.baseName()),
+                        kind, field.getType().getCanonicalText(), null, kind.getDefaultOperation()));
+            } else {
+                fields.add(toConditionField(field, collectionClass, namingStrategy));
+            }
+        }
+        return new ConditionModel(psiClass.getQualifiedName(), fields);
+    }
+
+    private static ConditionField toConditionField(PsiField field, PsiClass collectionClass, ColumnNamingStrategy namingStrategy) {
+        String fieldName = field.getName();
+        PsiType fieldType = field.getType();
+        String typeText = fieldType.getCanonicalText();
+        String elementType = null;
+        FieldKind kind;
+        PsiClass fieldClass = PsiUtil.resolveClassInType(fieldType);
+        if (CommonClassNames.JAVA_LANG_STRING.equals(typeText)) {
+            kind = FieldKind.STRING;
+        } else if (collectionClass != null && fieldClass != null && fieldClass.isInheritor(collectionClass, true)) {
+            elementType = getElementType(fieldType);
+            kind = elementType != null && FieldRules.TEMPORAL_TYPES.contains(elementType) ? FieldKind.TEMPORAL_COLLECTION : FieldKind.COLLECTION;
+        } else if (CommonClassNames.JAVA_LANG_BOOLEAN.equals(typeText) || "boolean".equals(typeText)) {
+            kind = FieldKind.BOOLEAN;
+        } else if (fieldType instanceof PsiClassType && isNestedClass(fieldClass)) {
+            // 列名在展开时替换为该类型的 <sql> id
+            return new ConditionField(fieldName, null, FieldKind.NESTED, fieldClass.getQualifiedName(), null, FieldKind.NESTED.getDefaultOperation());
+        } else {
+            kind = FieldKind.SCALAR;
+        }
+        return new ConditionField(fieldName, ColumnNameResolver.resolve(field, namingStrategy), kind, typeText, elementType, kind.getDefaultOperation());
+    }
+
+    private static boolean isNestedClass(PsiClass psiClass) {
+        if (psiClass == null || psiClass instanceof PsiTypeParameter || psiClass.isInterface() || psiClass.isEnum() || psiClass.isAnnotationType()) {
+            return false;
+        }
+        String qualifiedName = psiClass.getQualifiedName();
+        return qualifiedName != null && !FieldRules.isJdkType(qualifiedName) && isInProjectContent(psiClass) && psiClass.getAllFields().length > 0;
+    }
+
+    /**
+     * 只展开项目源码中的类；依赖库中的值类型（Joda DateTime、ObjectId、JsonNode 等）仍按普通参数绑定。
+     */
+    private static boolean isInProjectContent(PsiClass psiClass) {
+        VirtualFile file = PsiUtilCore.getVirtualFile(psiClass);
+        return file != null && !(psiClass instanceof PsiCompiledElement) && ProjectFileIndex.getInstance(psiClass.getProject()).isInContent(file);
+    }
+
+    private static String getElementType(PsiType fieldType) {
+        if (!(fieldType instanceof PsiClassType classType)) {
+            return null;
+        }
+        // 获取泛型参数
+        PsiType[] parameters = classType.getParameters();
+        if (parameters.length != 1) {
+            return null;
+        }
+        // 获取泛型参数的类
+        PsiClass parameterClass = PsiUtil.resolveClassInType(parameters[0]);
+        return parameterClass == null ? null : parameterClass.getQualifiedName();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的条件模板。模板文本只在编译时解析一次，拆成字面量和占位符两部分，
+ * 生成时直接按顺序追加，不再经过 String.format。
+ * <p>
+ * 支持的占位符：${param} 参数全名，${column} 列全名，${operator} SQL 操作符，
+ * ${var} 由参数全名转换得到的变量名（用于 &lt;bind&gt;）。
+ * $${ 转义为字面量 ${，用于在模板中写 MyBatis 的 ${} 文本替换，例如 ORDER BY $${orderBy}。
+ */
+public final class ConditionTemplate {
+
+    public static final String PARAM = "param";
+    public static final String COLUMN = "column";
+    public static final String OPERATOR = "operator";
+    public static final String VAR = "var";
+
+    private static final String[] PLACEHOLDERS = {PARAM, COLUMN, OPERATOR, VAR};
+
+    private final String text;
+    private final String[] literals;
+    private final int[] placeholders;
+    private final int literalLength;
+
+    private ConditionTemplate(String text, String[] literals, int[] placeholders) {
+        this.text = text;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static ConditionTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int from = 0;
+        int start;
+        while ((start = text.indexOf("${", from)) >= 0) {
+            if (start > from && text.charAt(start - 1) == '$') {
+                literal.append(text, from, start - 1).append("${");
+                from = start + 2;
+                continue;
+            }
+            int end = text.indexOf('}', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + start);
+            }
+            String name = text.substring(start + 2, end);
+            int placeholder = List.of(PLACEHOLDERS).indexOf(name);
+            if (placeholder < 0) {
+                throw new IllegalArgumentException("Unknown placeholder ${" + name + "}, write $${" + name + "} for a literal ${" + name + "}");
+            }
+            literals.add(literal.append(text, from, start).toString());
+            literal.setLength(0);
+            placeholders.add(placeholder);
+            from = end + 1;
+        }
+        literals.add(literal.append(text, from, text.length()).toString());
+        return new ConditionTemplate(text, literals.toArray(new String[0]), placeholders.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void appendTo(StringBuilder sb, String param, String column, String operator) {
+        appendTo(sb, param, column, operator, null);
+    }
+
+    /**
+     * @param var ${var} 的值，为 null 时由 param 转换得到
+     */
+    public void appendTo(StringBuilder sb, String param, String column, String operator, String var) {
+        sb.ensureCapacity(sb.length() + literalLength + placeholders.length * Math.max(param.length(), column.length()));
+        sb.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            switch (placeholders[i]) {
+                case 0 -> sb.append(param);
+                case 1 -> sb.append(column);
+                case 2 -> sb.append(operator);
+                default -> sb.append(var != null ? var : StrUtil.toVariableName(param));
+            }
+            sb.append(literals[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 本地 DDL 文件解析得到的全部表，按小写表名索引。
+ */
+public final class DatabaseSchema {
+
+    public static final DatabaseSchema EMPTY = new DatabaseSchema(Map.of());
+
+    // 参数类名常见的后缀，去掉后再匹配表名
+    private static final String[] CLASS_SUFFIXES = {"Query", "Params", "Param", "Condition", "Criteria", "Request", "Req",
+            "Search", "Filter", "Form", "DTO", "Dto", "VO", "Vo"};
+    private static final String[] TABLE_PREFIXES = {"", "t_", "tb_", "tbl_"};
+
+    private final Map<String, TableSchema> tables;
+
+    DatabaseSchema(Map<String, TableSchema> tables) {
+        this.tables = tables;
+    }
+
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+
+    public Set<String> getTableNames() {
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+
+    public TableSchema getTable(String name) {
+        return StrUtil.isBlank(name) ? null : tables.get(TableSchema.normalize(name));
+    }
+
+    /**
+     * 根据参数类的简单类名猜测对应的表，例如 UserQuery 依次尝试 user、t_user、tb_user、users 等。
+     */
+    public TableSchema guessTable(String simpleClassName) {
+        String base = simpleClassName;
+        for (String suffix : CLASS_SUFFIXES) {
+            if (base.length() > suffix.length() && base.endsWith(suffix)) {
+                base = base.substring(0, base.length() - suffix.length());
+                break;
+            }
+        }
+        base = StrUtil.toUnderlineCase(base);
+        for (String prefix : TABLE_PREFIXES) {
+            TableSchema table = getTable(prefix + base);
+            if (table == null) {
+                table = getTable(prefix + base + "s");
+            }
+            if (table != null) {
+                return table;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 轻量的 DDL 解析器，只关心表、列和索引，按顺序执行 CREATE TABLE、CREATE INDEX、ALTER TABLE、
+ * DROP TABLE/INDEX，所以可以直接喂给它 Flyway 之类的迁移脚本。无法识别的语句直接跳过。
+ */
+public final class DdlParser {
+
+    private final Map<String, TableSchema> tables = new LinkedHashMap<>();
+
+    public void parse(CharSequence sql) {
+        List<Token> statement = new ArrayList<>();
+        for (Token token : tokenize(sql)) {
+            if (token.is(";")) {
+                statement(new Cursor(statement));
+                statement = new ArrayList<>();
+            } else {
+                statement.add(token);
+            }
+        }
+        statement(new Cursor(statement));
+    }
+
+    public DatabaseSchema toSchema() {
+        return tables.isEmpty() ? DatabaseSchema.EMPTY : new DatabaseSchema(new LinkedHashMap<>(tables));
+    }
+
+    private void statement(Cursor c) {
+        if (c.accept("CREATE")) {
+            c.accept("OR", "REPLACE");
+            while (c.accept("GLOBAL") || c.accept("LOCAL") || c.accept("TEMPORARY") || c.accept("TEMP") || c.accept("UNLOGGED")) {
+                // 忽略表修饰符
+            }
+            if (c.accept("TABLE")) {
+                createTable(c);
+            } else {
+                boolean unique = c.accept("UNIQUE");
+                if (c.accept("INDEX")) {
+                    createIndex(c, unique);
+                }
+            }
+        } else if (c.accept("ALTER", "TABLE")) {
+            alterTable(c);
+        } else if (c.accept("DROP", "TABLE")) {
+            c.accept("IF", "EXISTS");
+            do {
+                tables.remove(c.name());
+            } while (c.accept(","));
+        } else if (c.accept("DROP", "INDEX")) {
+            c.accept("CONCURRENTLY");
+            c.accept("IF", "EXISTS");
+            String indexName = c.name();
+            TableSchema table = c.accept("ON") ? tables.get(c.name()) : null;
+            if (table != null) {
+                table.dropIndex(indexName);
+            } else {
+                for (TableSchema each : tables.values()) {
+                    each.dropIndex(indexName);
+                }
+            }
+        }
+    }
+
+    private void createTable(Cursor c) {
+        boolean ifNotExists = c.accept("IF", "NOT", "EXISTS");
+        String name = c.name();
+        // CREATE TABLE ... AS SELECT / LIKE 无法得知列，跳过
+        if (name == null || !c.peek("(") || (ifNotExists && tables.containsKey(name))) {
+            return;
+        }
+        TableSchema table = new TableSchema(name);
+        for (Cursor element : c.parenList()) {
+            tableElement(table, element);
+        }
+        tables.put(name, table);
+    }
+
+    private void createIndex(Cursor c, boolean unique) {
+        c.accept("CONCURRENTLY");
+        c.accept("IF", "NOT", "EXISTS");
+        String indexName = c.peek("ON") ? null : c.name();
+        if (!c.accept("ON")) {
+            return;
+        }
+        c.accept("ONLY");
+        TableSchema table = tables.get(c.name());
+        if (table == null) {
+            return;
+        }
+        if (c.accept("USING")) {
+            c.next();
+        }
+        if (c.peek("(")) {
+            table.addIndex(new TableSchema.Index(indexName, indexColumns(c), unique));
+        }
+    }
+
+    private void alterTable(Cursor c) {
+        c.accept("IF", "EXISTS");
+        c.accept("ONLY");
+        String name = c.name();
+        TableSchema table = tables.get(name);
+        if (table == null) {
+            return;
+        }
+        for (Cursor action : c.splitRest()) {
+            if (action.accept("ADD")) {
+                if (action.peek("(")) {
+                    for (Cursor element : action.parenList()) {
+                        tableElement(table, element);
+                    }
+                } else {
+                    action.accept("COLUMN");
+                    action.accept("IF", "NOT", "EXISTS");
+                    tableElement(table, action);
+                }
+            } else if (action.accept("DROP")) {
+                dropElement(table, action);
+            } else if (action.accept("RENAME", "COLUMN")) {
+                String from = action.name();
+                if (action.accept("TO")) {
+                    table.renameColumn(from, action.name());
+                }
+            } else if (action.accept("CHANGE")) {
+                action.accept("COLUMN");
+                String from = action.name();
+                table.renameColumn(from, action.name());
+            } else if (action.accept("RENAME")) {
+                if (action.accept("TO") || action.accept("AS") || !action.peek("INDEX") && !action.peek("KEY")) {
+                    String newName = action.name();
+                    if (newName != null) {
+                        tables.remove(table.getName());
+                        table.rename(newName);
+                        tables.put(newName, table);
+                    }
+                }
+            }
+        }
+    }
+
+    private void dropElement(TableSchema table, Cursor c) {
+        if (c.accept("PRIMARY", "KEY")) {
+            table.dropIndex(TableSchema.Index.PRIMARY);
+        } else if (c.accept("INDEX") || c.accept("KEY") || c.accept("CONSTRAINT")) {
+            c.accept("IF", "EXISTS");
+            table.dropIndex(c.name());
+        } else if (c.peek("(")) {
+            for (Cursor column : c.parenList()) {
+                table.dropColumn(column.name());
+            }
+        } else if (!c.peek("FOREIGN") && !c.peek("CHECK") && !c.peek("PARTITION")) {
+            c.accept("COLUMN");
+            c.accept("IF", "EXISTS");
+            String column = c.name();
+            if (column != null) {
+                table.dropColumn(column);
+            }
+        }
+    }
+
+    private void tableElement(TableSchema table, Cursor c) {
+        String constraintName = null;
+        if (c.accept("CONSTRAINT") && !c.peek("PRIMARY") && !c.peek("UNIQUE")) {
+            constraintName = c.name();
+        }
+        if (c.accept("PRIMARY", "KEY")) {
+            skipIndexType(c);
+            table.addIndex(new TableSchema.Index(TableSchema.Index.PRIMARY, indexColumns(c), true));
+        } else if (c.accept("UNIQUE")) {
+            if (!c.accept("KEY")) {
+                c.accept("INDEX");
+            }
+            String indexName = c.peek("(") ? constraintName : c.name();
+            skipIndexType(c);
+            table.addIndex(new TableSchema.Index(indexName, indexColumns(c), true));
+        } else if (c.accept("KEY") || c.accept("INDEX")) {
+            String indexName = c.peek("(") ? null : c.name();
+            skipIndexType(c);
+            table.addIndex(new TableSchema.Index(indexName, indexColumns(c), false));
+        } else if (constraintName == null && !c.peek("FULLTEXT") && !c.peek("SPATIAL") && !c.peek("FOREIGN")
+                && !c.peek("CHECK") && !c.peek("EXCLUDE") && !c.peek("LIKE") && !c.peek("PERIOD")) {
+            String column = c.name();
+            if (column == null) {
+                return;
+            }
+            table.addColumn(column);
+            // 列级约束：col ... PRIMARY KEY / UNIQUE
+            while (c.hasNext()) {
+                if (c.accept("PRIMARY", "KEY")) {
+                    table.addIndex(new TableSchema.Index(TableSchema.Index.PRIMARY, List.of(column), true));
+                } else if (c.accept("UNIQUE")) {
+                    table.addIndex(new TableSchema.Index(column, List.of(column), true));
+                } else {
+                    c.next();
+                }
+            }
+        }
+    }
+
+    private static void skipIndexType(Cursor c) {
+        if (c.accept("USING")) {
+            c.next();
+        }
+    }
+
+    /**
+     * 解析索引列列表，MySQL 的前缀索引 name(10) 按列 name 处理，函数索引保存为表达式文本。
+     */
+    private static List<String> indexColumns(Cursor c) {
+        if (!c.peek("(")) {
+            return List.of();
+        }
+        List<String> columns = new ArrayList<>();
+        for (Cursor element : c.parenList()) {
+            List<Token> tokens = element.rest();
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            Token first = tokens.get(0);
+            boolean prefixLength = tokens.size() >= 4 && tokens.get(1).is("(") && tokens.get(2).isNumber() && tokens.get(3).is(")");
+            if (first.isIdentifier() && (tokens.size() == 1 || !tokens.get(1).is("(") || prefixLength)) {
+                columns.add(TableSchema.normalize(first.text()));
+            } else {
+                StringBuilder expression = new StringBuilder();
+                for (Token token : tokens) {
+                    if (token.isKeyword("ASC") || token.isKeyword("DESC")) {
+                        break;
+                    }
+                    expression.append(token.text().toLowerCase(Locale.ROOT));
+                }
+                columns.add(expression.toString());
+            }
+        }
+        return columns;
+    }
+
+    static List<Token> tokenize(CharSequence sql) {
+        List<Token> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-' || c == '#') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = indexOf(sql, "*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int start = i++;
+                while (i < length) {
+                    if (sql.charAt(i) == close) {
+                        // 引号内连续两个引号表示转义
+                        if (i + 1 < length && sql.charAt(i + 1) == close && close != ']') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i = Math.min(i + 1, length);
+                tokens.add(new Token(sql.subSequence(start, i).toString(), c == '\'' ? Token.STRING : Token.QUOTED));
+            } else if (c == '$' && dollarTagEnd(sql, i) > 0) {
+                // PostgreSQL 的 $tag$ ... $tag$ 函数体，里面的分号不拆分语句
+                int tagEnd = dollarTagEnd(sql, i);
+                String tag = sql.subSequence(i, tagEnd).toString();
+                int end = indexOf(sql, tag, tagEnd);
+                int start = i;
+                i = end < 0 ? length : end + tag.length();
+                tokens.add(new Token(sql.subSequence(start, i).toString(), Token.STRING));
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(new Token(sql.subSequence(start, i).toString(), Token.WORD));
+            } else {
+                tokens.add(new Token(String.valueOf(c), Token.SYMBOL));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int dollarTagEnd(CharSequence sql, int start) {
+        int i = start + 1;
+        while (i < sql.length() && (Character.isLetter(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i++;
+        }
+        return i < sql.length() && sql.charAt(i) == '$' ? i + 1 : -1;
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        for (int i = from; i <= text.length() - target.length(); i++) {
+            if (text.charAt(i) == target.charAt(0) && text.subSequence(i, i + target.length()).toString().equals(target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    record Token(String text, int kind) {
+        static final int WORD = 0;
+        static final int QUOTED = 1;
+        static final int STRING = 2;
+        static final int SYMBOL = 3;
+
+        boolean is(String symbol) {
+            return kind == SYMBOL && text.equals(symbol);
+        }
+
+        boolean isKeyword(String keyword) {
+            return kind == WORD && text.equalsIgnoreCase(keyword);
+        }
+
+        boolean isIdentifier() {
+            return kind == WORD || kind == QUOTED;
+        }
+
+        boolean isNumber() {
+            return kind == WORD && Character.isDigit(text.charAt(0));
+        }
+    }
+
+    /**
+     * 一条语句（或语句中的一段）的 token 游标。
+     */
+    private static final class Cursor {
+        private final List<Token> tokens;
+        private int pos;
+
+        Cursor(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean hasNext() {
+            return pos < tokens.size();
+        }
+
+        void next() {
+            pos++;
+        }
+
+        boolean peek(String keywordOrSymbol) {
+            return hasNext() && matches(tokens.get(pos), keywordOrSymbol);
+        }
+
+        /**
+         * 依次匹配全部关键字时前进并返回 true，否则不移动。
+         */
+        boolean accept(String... keywords) {
+            if (pos + keywords.length > tokens.size()) {
+                return false;
+            }
+            for (int i = 0; i < keywords.length; i++) {
+                if (!matches(tokens.get(pos + i), keywords[i])) {
+                    return false;
+                }
+            }
+            pos += keywords.length;
+            return true;
+        }
+
+        private static boolean matches(Token token, String keywordOrSymbol) {
+            return Character.isLetter(keywordOrSymbol.charAt(0)) ? token.isKeyword(keywordOrSymbol) : token.is(keywordOrSymbol);
+        }
+
+        /**
+         * 读取可能带 schema 前缀的名称，返回规范化后的最后一段。
+         */
+        String name() {
+            String name = null;
+            while (hasNext() && tokens.get(pos).isIdentifier()) {
+                name = TableSchema.normalize(tokens.get(pos++).text());
+                if (!accept(".")) {
+                    break;
+                }
+            }
+            return name;
+        }
+
+        /**
+         * 当前位于 "(" 时，读取到对应的 ")" 为止，按顶层逗号拆分。
+         */
+        List<Cursor> parenList() {
+            List<Cursor> elements = new ArrayList<>();
+            List<Token> element = new ArrayList<>();
+            int depth = 0;
+            while (hasNext()) {
+                Token token = tokens.get(pos++);
+                if (token.is("(") && depth++ == 0) {
+                    continue;
+                }
+                if (token.is(")") && --depth == 0) {
+                    break;
+                }
+                if (token.is(",") && depth == 1) {
+                    elements.add(new Cursor(element));
+                    element = new ArrayList<>();
+                } else {
+                    element.add(token);
+                }
+            }
+            elements.add(new Cursor(element));
+            return elements;
+        }
+
+        /**
+         * 剩余部分按顶层逗号拆分，用于 ALTER TABLE 的多个子句。
+         */
+        List<Cursor> splitRest() {
+            List<Cursor> parts = new ArrayList<>();
+            List<Token> part = new ArrayList<>();
+            int depth = 0;
+            for (Token token : rest()) {
+                if (token.is("(")) {
+                    depth++;
+                } else if (token.is(")")) {
+                    depth--;
+                }
+                if (token.is(",") && depth == 0) {
+                    parts.add(new Cursor(part));
+                    part = new ArrayList<>();
+                } else {
+                    part.add(token);
+                }
+            }
+            parts.add(new Cursor(part));
+            return parts;
+        }
+
+        List<Token> rest() {
+            List<Token> rest = tokens.subList(pos, tokens.size());
+            pos = tokens.size();
+            return rest;
+        }
+    }
+}
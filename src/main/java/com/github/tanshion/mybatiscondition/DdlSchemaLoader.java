@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.NaturalComparator;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 按设置中的 DDL 路径加载表结构。路径可以是单个 .sql 文件，也可以是迁移脚本目录，
+ * 目录中的脚本按 Flyway 的顺序依次执行：版本号逐段按数值比较（V1__ 在 V1_1__ 之前，V2 在 V10 之前），
+ * 可重复执行的 R__ 脚本在所有版本之后；不符合 Flyway 命名的脚本按文件名自然排序，排在最前。
+ * <p>
+ * 结果缓存在项目上，路径设置、文件增删或脚本内容（包括未保存的编辑）变化时重新解析。
+ */
+final class DdlSchemaLoader {
+
+    private static final Key<CachedValue<DatabaseSchema>> SCHEMA_KEY = Key.create("mybatis.condition.schema");
+
+    /**
+     * Flyway 迁移脚本的执行顺序。
+     */
+    static final Comparator<String> MIGRATION_ORDER = Comparator.comparingInt(DdlSchemaLoader::migrationGroup)
+            .thenComparing(DdlSchemaLoader::migrationVersion, Comparator.nullsFirst(DdlSchemaLoader::compareVersions))
+            .thenComparing(NaturalComparator.INSTANCE);
+
+    private DdlSchemaLoader() {
+    }
+
+    static DatabaseSchema getSchema(Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, SCHEMA_KEY, () -> {
+            try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.SCHEMA_LOAD)) {
+                return load(project);
+            }
+        }, false);
+    }
+
+    private static CachedValueProvider.Result<DatabaseSchema> load(Project project) {
+        MybatisConditionSettings settings = MybatisConditionSettings.getInstance(project);
+        List<Object> dependencies = new ArrayList<>();
+        dependencies.add(settings.getSchemaModificationTracker());
+        dependencies.add(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+
+        DdlParser parser = new DdlParser();
+        for (String path : settings.getDdlPaths()) {
+            VirtualFile root = findFile(project, path);
+            if (root == null) {
+                continue;
+            }
+            for (VirtualFile file : collectSqlFiles(root)) {
+                Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+                parser.parse(document != null ? document.getImmutableCharSequence() : LoadTextUtil.loadText(file));
+                dependencies.add(document != null ? document : file);
+            }
+        }
+        return CachedValueProvider.Result.create(parser.toSchema(), dependencies);
+    }
+
+    private static VirtualFile findFile(Project project, String path) {
+        String trimmed = path.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        if (!FileUtil.isAbsolute(trimmed) && project.getBasePath() != null) {
+            trimmed = project.getBasePath() + "/" + trimmed;
+        }
+        return LocalFileSystem.getInstance().findFileByPath(FileUtil.toSystemIndependentName(trimmed));
+    }
+
+    private static List<VirtualFile> collectSqlFiles(VirtualFile root) {
+        List<VirtualFile> files = new ArrayList<>();
+        VfsUtilCore.iterateChildrenRecursively(root, null, file -> {
+            if (!file.isDirectory() && "sql".equalsIgnoreCase(file.getExtension())) {
+                files.add(file);
+            }
+            return true;
+        });
+        files.sort(Comparator.comparing(VirtualFile::getName, MIGRATION_ORDER));
+        return files;
+    }
+
+    /**
+     * 0：不是 Flyway 脚本，1：带版本的 V 脚本，2：可重复执行的 R 脚本。
+     */
+    private static int migrationGroup(String name) {
+        if (migrationVersion(name) != null) {
+            return 1;
+        }
+        return name.length() > 3 && Character.toUpperCase(name.charAt(0)) == 'R' && name.startsWith("__", 1) ? 2 : 0;
+    }
+
+    /**
+     * V1_1__init.sql 的版本号 [1, 1]，版本号可以用 . 或 _ 分隔，不是带版本的脚本时返回 null。
+     */
+    private static List<BigInteger> migrationVersion(String name) {
+        int end = name.indexOf("__");
+        if (end < 2 || Character.toUpperCase(name.charAt(0)) != 'V') {
+            return null;
+        }
+        List<BigInteger> parts = new ArrayList<>();
+        for (String part : name.substring(1, end).split("[._]", -1)) {
+            if (part.isEmpty() || !part.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                return null;
+            }
+            parts.add(new BigInteger(part));
+        }
+        return parts;
+    }
+
+    /**
+     * 逐段比较，缺少的段按 0 处理，1 与 1.0 相同。
+     */
+    private static int compareVersions(List<BigInteger> a, List<BigInteger> b) {
+        for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+            int result = (i < a.size() ? a.get(i) : BigInteger.ZERO).compareTo(i < b.size() ? b.get(i) : BigInteger.ZERO);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.tanshion.mybatiscondition.MybatisSqlGen.*;
+
+public enum FieldKind {
+    STRING(EQ, EQ, LIKE, STARTS_WITH, ENDS_WITH, ILIKE),
+    TEMPORAL_COLLECTION(BETWEEN, BETWEEN, HALF_OPEN),
+    COLLECTION(IN, IN, NOT_IN, IN_PADDED, BETWEEN, HALF_OPEN),
+    BOOLEAN(EQ, EQ),
+    SCALAR(EQ, EQ, NOT_EQ, GT, LT, GTE, LTE),
+    // 成对的起止字段，例如 createTimeStart / createTimeEnd，列名取去掉前后缀后的字段名
+    RANGE_START(GTE, GTE, GT),
+    RANGE_END(LT, LT, LTE),
+    // 嵌套的查询对象，生成为对该类型 <sql> 片段的 <include>
+    NESTED(INCLUDE, INCLUDE);
+
+    private final String defaultOperation;
+    private final String[] operations;
+
+    FieldKind(String defaultOperation, String... operations) {
+        this.defaultOperation = defaultOperation;
+        this.operations = operations;
+    }
+
+    public String getDefaultOperation() {
+        return defaultOperation;
+    }
+
+    public String[] getOperations() {
+        return operations.clone();
+    }
+
+    /**
+     * 包含只在指定数据库上可用的操作符。
+     */
+    public String[] getOperations(String dbType) {
+        if (this != COLLECTION) {
+            return getOperations();
+        }
+        List<String> result = new ArrayList<>(Arrays.asList(operations));
+        if (POSTGRESQL.equals(dbType)) {
+            result.addAll(result.indexOf(BETWEEN), List.of(IN_ARRAY, NOT_IN_ARRAY));
+        } else if (ORACLE.equals(dbType)) {
+            result.add(result.indexOf(BETWEEN), IN_CHUNKED);
+        }
+        return result.toArray(new String[0]);
+    }
+}
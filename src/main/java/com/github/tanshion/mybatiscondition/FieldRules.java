@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * 与 PSI 无关的字段分类规则，IDE 中的 {@link ConditionModelBuilder} 和构建插件的字节码扫描共用。
+ */
+public final class FieldRules {
+
+    public static final Set<String> TEMPORAL_TYPES = Set.of(LocalDateTime.class.getName(), LocalDate.class.getName(),
+            Instant.class.getName(), OffsetDateTime.class.getName(), ZonedDateTime.class.getName(),
+            Date.class.getName(), Timestamp.class.getName());
+    public static final Set<String> NUMERIC_TYPES = Set.of("int", "long", "short", "byte", "double", "float",
+            Integer.class.getName(), Long.class.getName(), Short.class.getName(), Byte.class.getName(),
+            Double.class.getName(), Float.class.getName(), BigDecimal.class.getName(), BigInteger.class.getName());
+
+    // 注解全限定名, 属性名；按优先级排列
+    public static final String[][] COLUMN_ANNOTATIONS = {
+            {"com.baomidou.mybatisplus.annotation.TableField", "value"},
+            {"com.baomidou.mybatisplus.annotation.TableId", "value"},
+            {"jakarta.persistence.Column", "name"},
+            {"javax.persistence.Column", "name"},
+            {"com.fasterxml.jackson.annotation.JsonProperty", "value"},
+    };
+
+    private FieldRules() {
+    }
+
+    /**
+     * 参与起止字段配对的类型：时间和数值。
+     */
+    public static boolean isRangeType(String typeText) {
+        return TEMPORAL_TYPES.contains(typeText) || NUMERIC_TYPES.contains(typeText);
+    }
+
+    /**
+     * JDK 中的类不作为嵌套查询对象展开。
+     */
+    public static boolean isJdkType(String qualifiedName) {
+        return qualifiedName.startsWith("java.") || qualifiedName.startsWith("javax.");
+    }
+}
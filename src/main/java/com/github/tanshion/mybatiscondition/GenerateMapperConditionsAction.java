@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+public class GenerateMapperConditionsAction extends AnAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        VirtualFile[] roots = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (project == null || roots == null || roots.length == 0) {
+            return;
+        }
+        MapperConditionBulkGen generator = MybatisConditionService.getInstance(project).createBulkGenerator();
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Generating MyBatis conditions", true) {
+            private String report;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                report = generator.generate(roots, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                FileEditorManager.getInstance(project).openFile(new LightVirtualFile("mybatis-conditions.xml", report), true);
+            }
+        });
+    }
+}
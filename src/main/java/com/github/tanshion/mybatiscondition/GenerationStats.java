@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 插件耗时统计：按阶段累计次数、总耗时、最大耗时以及其中在 EDT 上花费的时间，另外记录字段数和模型缓存命中率。
+ * <p>
+ * 单次耗时以 debug 级别写入 idea.log（#com.github.tanshion.mybatiscondition.GenerationStats），
+ * EDT 上超过 {@link #EDT_REPORT_MILLIS} 毫秒的调用以 info 级别记录，汇总结果通过诊断 Action 查看。
+ */
+public final class GenerationStats {
+
+    private static final Logger LOG = Logger.getInstance(GenerationStats.class);
+    public static final long EDT_REPORT_MILLIS = 50;
+
+    public enum Phase {
+        CARET_RESOLVE("Caret class resolution"),
+        MODEL_LOOKUP("Model lookup"),
+        MODEL_BUILD("Model build (PSI)"),
+        GENERATE("Generation"),
+        DIALOG_INIT("Dialog construction"),
+        SCHEMA_LOAD("DDL schema load"),
+        FRAGMENT_LOOKUP("Mapper fragment lookup"),
+        BULK_GENERATE("Bulk generation");
+
+        private final String text;
+
+        Phase(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final Map<Phase, PhaseStats> phases = new EnumMap<>(Phase.class);
+    private final LongAdder models = new LongAdder();
+    private final LongAdder fields = new LongAdder();
+    private final AtomicLong maxFields = new AtomicLong();
+    private volatile LocalDateTime since = LocalDateTime.now().withNano(0);
+
+    public GenerationStats() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new PhaseStats());
+        }
+    }
+
+    public static GenerationStats getInstance() {
+        return ApplicationManager.getApplication().getService(GenerationStats.class);
+    }
+
+    /**
+     * 开始计时，配合 try-with-resources 使用。
+     *
+     * @param detail 写入日志的附加信息，例如类名，可以为 null
+     */
+    public Timer start(Phase phase, String detail) {
+        return new Timer(phase, detail, System.nanoTime());
+    }
+
+    public Timer start(Phase phase) {
+        return start(phase, null);
+    }
+
+    /**
+     * 记录一次新建模型的字段数。
+     */
+    public void recordFields(int count) {
+        models.increment();
+        fields.add(count);
+        maxFields.accumulateAndGet(count, Math::max);
+    }
+
+    public long getCount(Phase phase) {
+        return phases.get(phase).count.sum();
+    }
+
+    public void reset() {
+        phases.values().forEach(PhaseStats::reset);
+        models.reset();
+        fields.reset();
+        maxFields.set(0);
+        since = LocalDateTime.now().withNano(0);
+    }
+
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append("MybatisCondition stats since ").append(since.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("\n\n");
+        text.append(String.format("%-26s %8s %11s %9s %9s %9s %9s%n", "Phase", "Count", "Total ms", "Avg ms", "Max ms", "EDT count", "EDT ms"));
+        phases.forEach((phase, stats) -> {
+            long count = stats.count.sum();
+            text.append(String.format("%-26s %8d %11.1f %9.2f %9.1f %9d %9.1f%n", phase, count, millis(stats.totalNanos.sum()),
+                    count == 0 ? 0 : millis(stats.totalNanos.sum()) / count, millis(stats.maxNanos.get()),
+                    stats.edtCount.sum(), millis(stats.edtNanos.sum())));
+        });
+        // 每次查找要么命中缓存，要么新建一次模型
+        long lookups = phases.get(Phase.MODEL_LOOKUP).count.sum();
+        long misses = phases.get(Phase.MODEL_BUILD).count.sum();
+        long hits = Math.max(0, lookups - misses);
+        text.append('\n').append(String.format("Model cache: %d hits, %d misses (%.1f%% hit rate)%n",
+                hits, misses, lookups == 0 ? 0 : 100.0 * hits / lookups));
+        long modelCount = models.sum();
+        text.append(String.format("Fields: %d models built, %d fields, %.1f avg, %d max%n",
+                modelCount, fields.sum(), modelCount == 0 ? 0 : (double) fields.sum() / modelCount, maxFields.get()));
+        return text.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class PhaseStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder edtCount = new LongAdder();
+        private final LongAdder edtNanos = new LongAdder();
+
+        void record(long nanos, boolean edt) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (edt) {
+                edtCount.increment();
+                edtNanos.add(nanos);
+            }
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            edtCount.reset();
+            edtNanos.reset();
+        }
+    }
+
+    public final class Timer implements AutoCloseable {
+        private final Phase phase;
+        private final String detail;
+        private final long startNanos;
+
+        private Timer(Phase phase, String detail, long startNanos) {
+            this.phase = phase;
+            this.detail = detail;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - startNanos;
+            boolean edt = ApplicationManager.getApplication().isDispatchThread();
+            phases.get(phase).record(nanos, edt);
+            if (edt && TimeUnit.NANOSECONDS.toMillis(nanos) >= EDT_REPORT_MILLIS) {
+                LOG.info(phase + (detail != null ? " [" + detail + "]" : "") + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms on EDT");
+            } else if (LOG.isDebugEnabled()) {
+                LOG.debug(phase + (detail != null ? " [" + detail + "]" : "") + " took " + String.format("%.2f", millis(nanos)) + " ms"
+                        + (edt ? " on EDT" : ""));
+            }
+        }
+    }
+}
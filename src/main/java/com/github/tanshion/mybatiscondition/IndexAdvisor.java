@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 对照表结构检查生成的条件：列是否存在、能否用上索引，并按最匹配的联合索引前缀排列条件。
+ * <p>
+ * 等值类操作符（=、IN）可以继续使用索引的下一列，范围类（BETWEEN、&gt;、前缀 LIKE）只能用到当前列，
+ * 其余操作符（!=、NOT IN、%x%）用不上 B-tree 索引。
+ */
+public final class IndexAdvisor {
+
+    public enum Status {
+        INDEXED("indexed"),
+        NOT_LEADING("not leading"),
+        NOT_SARGABLE("not sargable"),
+        NO_INDEX("no index"),
+        UNKNOWN_COLUMN("unknown column");
+
+        private final String text;
+
+        Status(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    public record Hint(Status status, String indexName) {
+        @Override
+        public String toString() {
+            return indexName == null ? status.getText() : status.getText() + " (" + indexName + ")";
+        }
+    }
+
+    public record Result(List<ConditionField> orderedFields, Map<String, Hint> hints) {
+
+        public long count(Status status) {
+            return hints.values().stream().filter(hint -> hint.status() == status).count();
+        }
+    }
+
+    private static final int EQUALITY = 0;
+    private static final int RANGE = 1;
+    private static final int NOT_SARGABLE = 2;
+
+    private IndexAdvisor() {
+    }
+
+    /**
+     * 字段应已带上当前选择的操作符。嵌套对象的"列"是 &lt;sql&gt; 片段 id，不做检查，没有提示。
+     */
+    public static Result analyze(List<ConditionField> fields, TableSchema table) {
+        Map<String, ConditionField> byColumn = new HashMap<>();
+        for (ConditionField field : fields) {
+            if (field.kind() == FieldKind.NESTED) {
+                continue;
+            }
+            byColumn.putIfAbsent(TableSchema.normalize(field.column()), field);
+        }
+
+        // 每个索引从第一列起能连续用到几列，取覆盖最多的作为主索引，唯一索引优先
+        TableSchema.Index best = null;
+        int bestUsable = 0;
+        Map<TableSchema.Index, Integer> usable = new HashMap<>();
+        for (TableSchema.Index index : table.getIndexes()) {
+            int count = 0;
+            for (String column : index.columns()) {
+                ConditionField field = byColumn.get(column);
+                int access = field == null ? NOT_SARGABLE : access(field.operator());
+                if (access == NOT_SARGABLE) {
+                    break;
+                }
+                count++;
+                if (access == RANGE) {
+                    break;
+                }
+            }
+            usable.put(index, count);
+            if (count > bestUsable || count == bestUsable && count > 0 && index.unique() && !best.unique()) {
+                best = index;
+                bestUsable = count;
+            }
+        }
+
+        Map<String, Hint> hints = new LinkedHashMap<>();
+        for (ConditionField field : fields) {
+            if (field.kind() != FieldKind.NESTED) {
+                hints.put(field.name(), hint(field, table, usable));
+            }
+        }
+
+        Set<ConditionField> ordered = new LinkedHashSet<>();
+        if (best != null) {
+            for (String column : best.columns().subList(0, bestUsable)) {
+                ordered.add(byColumn.get(column));
+            }
+        }
+        // 其余字段保持原顺序：能用索引的在前，其次不能用索引的，然后是表中不存在的列，嵌套对象的 <include> 在最后
+        for (Status status : Status.values()) {
+            for (ConditionField field : fields) {
+                Hint hint = hints.get(field.name());
+                if (hint != null && hint.status() == status) {
+                    ordered.add(field);
+                }
+            }
+        }
+        ordered.addAll(fields);
+        return new Result(List.copyOf(ordered), hints);
+    }
+
+    private static Hint hint(ConditionField field, TableSchema table, Map<TableSchema.Index, Integer> usable) {
+        String column = TableSchema.normalize(field.column());
+        if (!table.hasColumn(column)) {
+            return new Hint(Status.UNKNOWN_COLUMN, null);
+        }
+        String containing = null;
+        for (TableSchema.Index index : table.getIndexes()) {
+            int position = index.columns().indexOf(column);
+            if (position < 0) {
+                continue;
+            }
+            if (access(field.operator()) == NOT_SARGABLE) {
+                return new Hint(Status.NOT_SARGABLE, index.name());
+            }
+            if (position < usable.get(index)) {
+                return new Hint(Status.INDEXED, index.name());
+            }
+            if (containing == null) {
+                containing = index.name();
+            }
+        }
+        return containing == null ? new Hint(Status.NO_INDEX, null) : new Hint(Status.NOT_LEADING, containing);
+    }
+
+    private static int access(String operator) {
+        if (StrUtil.isBlank(operator)) {
+            return EQUALITY;
+        }
+        return switch (operator) {
+            case MybatisSqlGen.EQ, MybatisSqlGen.IS_NULL, MybatisSqlGen.IN, MybatisSqlGen.IN_ARRAY, MybatisSqlGen.IN_CHUNKED, MybatisSqlGen.IN_PADDED -> EQUALITY;
+            case MybatisSqlGen.BETWEEN, MybatisSqlGen.HALF_OPEN, MybatisSqlGen.GT, MybatisSqlGen.LT, MybatisSqlGen.GTE, MybatisSqlGen.LTE, MybatisSqlGen.STARTS_WITH -> RANGE;
+            default -> NOT_SARGABLE;
+        };
+    }
+}
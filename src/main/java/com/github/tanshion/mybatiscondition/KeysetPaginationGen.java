@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 生成键集（seek）分页片段：上一页最后一行的排序值作为游标，代替 LIMIT/OFFSET，
+ * 深分页时不再扫描并丢弃前面的行。
+ * <p>
+ * 排序方向一致时 MySQL、PostgreSQL 使用行值比较 (a, id) &gt; (#{lastA}, #{lastId})；
+ * Oracle 或方向混合时展开为 OR 形式，并在首列上加一个冗余的范围条件，保证能走索引范围扫描。
+ */
+public final class KeysetPaginationGen {
+
+    public static final String PAGE_SIZE_PARAM = "pageSize";
+    public static final String CURSOR_PREFIX = "last";
+
+    public record SortKey(ConditionField field, boolean descending) {
+    }
+
+    private KeysetPaginationGen() {
+    }
+
+    /**
+     * 解析 "createTime desc, id" 形式的排序字段，字段名或列名均可，大小写不敏感。
+     *
+     * @throws IllegalArgumentException 字段不存在、不能排序（集合、嵌套对象）或方向无法识别
+     */
+    public static List<SortKey> parseSortKeys(String text, List<ConditionField> fields) {
+        List<SortKey> keys = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String[] words = part.trim().split("\\s+");
+            if (words[0].isEmpty()) {
+                continue;
+            }
+            if (words.length > 2 || words.length == 2 && !words[1].equalsIgnoreCase("asc") && !words[1].equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("Invalid sort key: " + part.trim());
+            }
+            ConditionField field = findField(fields, words[0]);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown sort field: " + words[0]);
+            }
+            if (!isSortable(field)) {
+                throw new IllegalArgumentException("Collection or nested field cannot be a sort key: " + words[0]);
+            }
+            keys.add(new SortKey(field, words.length == 2 && words[1].equalsIgnoreCase("desc")));
+        }
+        return keys;
+    }
+
+    /**
+     * 游标必须唯一，最后一个排序字段不是唯一列时按同一方向追加主键（有表结构时）或 id 字段。
+     *
+     * @throws IllegalArgumentException 没有可追加的唯一列，非唯一的游标在分页边界会跳过或重复记录
+     */
+    public static List<SortKey> withTieBreaker(List<SortKey> keys, List<ConditionField> fields, TableSchema table) {
+        if (keys.isEmpty()) {
+            return keys;
+        }
+        String lastColumn = TableSchema.normalize(keys.get(keys.size() - 1).field().column());
+        String uniqueColumn = "id";
+        if (table != null) {
+            for (TableSchema.Index index : table.getIndexes()) {
+                if (index.unique() && index.columns().size() == 1) {
+                    if (index.columns().get(0).equals(lastColumn)) {
+                        return keys;
+                    }
+                    if (TableSchema.Index.PRIMARY.equals(index.name())) {
+                        uniqueColumn = index.columns().get(0);
+                    }
+                }
+            }
+        }
+        if (lastColumn.equals(uniqueColumn)) {
+            return keys;
+        }
+        ConditionField tieBreaker = findField(fields, uniqueColumn);
+        if (tieBreaker == null || !isSortable(tieBreaker)) {
+            throw new IllegalArgumentException("No unique tie-breaker column: end the sort keys with a unique column, or add a field for the '" + uniqueColumn + "' column");
+        }
+        List<SortKey> result = new ArrayList<>(keys);
+        result.add(new SortKey(tieBreaker, keys.get(keys.size() - 1).descending()));
+        return result;
+    }
+
+    public static String generate(List<SortKey> keys, String tableAlias, String paramPrefix, String dbType) {
+        if (keys.isEmpty()) {
+            return "";
+        }
+        String columnPrefix = StrUtil.isBlank(tableAlias) ? "" : tableAlias + ".";
+        String paramPath = StrUtil.isBlank(paramPrefix) ? "" : paramPrefix + ".";
+        int size = keys.size();
+        String[] columns = new String[size];
+        String[] cursors = new String[size];
+        boolean sameDirection = true;
+        for (int i = 0; i < size; i++) {
+            SortKey key = keys.get(i);
+            columns[i] = columnPrefix + key.field().column();
+            cursors[i] = paramPath + cursorName(key.field());
+            sameDirection &= key.descending() == keys.get(0).descending();
+        }
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("<!-- inside <where> -->\n");
+        sb.append("<if test=\"");
+        for (int i = 0; i < size; i++) {
+            sb.append(i == 0 ? "" : " and ").append(cursors[i]).append(" != null");
+        }
+        sb.append("\">\n    AND ");
+        if (sameDirection && !MybatisSqlGen.ORACLE.equals(dbType)) {
+            // 行值比较，一个范围条件即可定位
+            sb.append('(').append(String.join(", ", columns)).append(") ")
+                    .append(comparison(keys.get(0).descending())).append(" (");
+            for (int i = 0; i < size; i++) {
+                sb.append(i == 0 ? "" : ", ").append("#{").append(cursors[i]).append('}');
+            }
+            sb.append(")\n");
+        } else {
+            // (a > x) OR (a = x AND b > y) ...，首列上的冗余条件用于索引范围扫描
+            sb.append(columns[0]).append(keys.get(0).descending() ? " &lt;= " : " &gt;= ")
+                    .append("#{").append(cursors[0]).append("}\n    AND (");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append("\n        OR ");
+                }
+                sb.append('(');
+                for (int j = 0; j < i; j++) {
+                    sb.append(columns[j]).append(" = #{").append(cursors[j]).append("} AND ");
+                }
+                sb.append(columns[i]).append(' ').append(comparison(keys.get(i).descending()))
+                        .append(" #{").append(cursors[i]).append("})");
+            }
+            sb.append(")\n");
+        }
+        sb.append("</if>\n");
+
+        sb.append("<!-- after </where> -->\nORDER BY ");
+        for (int i = 0; i < size; i++) {
+            sb.append(i == 0 ? "" : ", ").append(columns[i]).append(keys.get(i).descending() ? " DESC" : "");
+        }
+        sb.append('\n');
+        if (MybatisSqlGen.ORACLE.equals(dbType)) {
+            sb.append("FETCH FIRST #{").append(paramPath).append(PAGE_SIZE_PARAM).append("} ROWS ONLY\n");
+        } else {
+            sb.append("LIMIT #{").append(paramPath).append(PAGE_SIZE_PARAM).append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 游标参数名，例如 createTime 对应 lastCreateTime。
+     */
+    public static String cursorName(ConditionField field) {
+        String name = field.name();
+        return CURSOR_PREFIX + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String comparison(boolean descending) {
+        return descending ? "&lt;" : "&gt;";
+    }
+
+    private static boolean isSortable(ConditionField field) {
+        return field.kind() != FieldKind.COLLECTION && field.kind() != FieldKind.TEMPORAL_COLLECTION && field.kind() != FieldKind.NESTED;
+    }
+
+    private static ConditionField findField(List<ConditionField> fields, String name) {
+        String normalized = name.toLowerCase(Locale.ROOT);
+        for (ConditionField field : fields) {
+            if (field.name().toLowerCase(Locale.ROOT).equals(normalized) || TableSchema.normalize(field.column()).equals(normalized)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiUtil;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扫描选中目录下的 Mapper 接口，按参数类去重后并行生成条件片段，输出为一组 &lt;sql&gt; 块。
+ */
+public class MapperConditionBulkGen {
+
+    public static final String MAPPER_ANNOTATION = "org.apache.ibatis.annotations.Mapper";
+    public static final String DEFAULT_TABLE_ALIAS = "t";
+    public static final String DEFAULT_PARAM_PREFIX = "param";
+
+    private final MybatisConditionService service;
+    private final Project project;
+    private final String dbType;
+    private final TemplateRegistry templates;
+
+    public MapperConditionBulkGen(MybatisConditionService service, String dbType, TemplateRegistry templates) {
+        this.service = service;
+        this.project = service.getProject();
+        this.dbType = dbType;
+        this.templates = templates;
+    }
+
+    public String generate(VirtualFile[] roots, ProgressIndicator indicator) {
+        try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.BULK_GENERATE)) {
+            return doGenerate(roots, indicator);
+        }
+    }
+
+    private String doGenerate(VirtualFile[] roots, ProgressIndicator indicator) {
+        indicator.setIndeterminate(true);
+        indicator.setText("Searching mapper interfaces...");
+        Map<String, ParameterClass> parameterClasses = findParameterClasses(roots, indicator);
+
+        List<ParameterClass> todo = new ArrayList<>(parameterClasses.values());
+        Map<String, String> fragments = new ConcurrentHashMap<>();
+        Map<String, String> covered = new ConcurrentHashMap<>();
+        Map<String, String> related = new ConcurrentHashMap<>();
+        // 嵌套类型的 <sql> 片段在所有参数类之间共用，只输出一次
+        Map<String, String> nestedFragments = new ConcurrentHashMap<>();
+        Map<String, String> nestedTypes = new ConcurrentHashMap<>();
+        Set<String> conflicts = ConcurrentHashMap.newKeySet();
+        AtomicInteger done = new AtomicInteger();
+        indicator.setIndeterminate(false);
+        indicator.setText("Generating conditions for " + todo.size() + " parameter classes...");
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(todo, indicator, parameterClass -> {
+            ConditionModel model = readInSmartMode(() -> {
+                PsiClass psiClass = parameterClass.pointer().getElement();
+                if (psiClass == null) {
+                    return null;
+                }
+                ConditionModel parameterModel = service.getModel(psiClass);
+                // 已有 Mapper XML 覆盖的参数类不再生成，只是相关的片段仍然生成并在结果中注明
+                List<MapperFragmentIndex.Match> matches = MapperFragmentIndex.find(project, parameterModel);
+                for (MapperFragmentIndex.Match match : matches) {
+                    if (MapperFragmentIndex.isCovering(match, parameterModel)) {
+                        covered.put(parameterClass.qualifiedName(), match.entry().getRefId());
+                        return null;
+                    }
+                }
+                if (!matches.isEmpty()) {
+                    related.put(parameterClass.qualifiedName(), matches.get(0).entry().getRefId());
+                }
+                return parameterModel;
+            });
+            // 模型与 PSI 无关，生成不需要持有读锁
+            String fragment = null;
+            if (model != null) {
+                try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.GENERATE, model.getQualifiedName())) {
+                    fragment = MybatisSqlGen.generateMyBatisConditions(model.getFields(), DEFAULT_TABLE_ALIAS, DEFAULT_PARAM_PREFIX, dbType, templates);
+                    model.getNestedModels().forEach((sqlId, nestedModel) -> {
+                        // 不同包下的同名类型在各自的参数类中可能得到相同的 id
+                        String existing = nestedTypes.putIfAbsent(sqlId, nestedModel.getQualifiedName());
+                        if (existing != null && !existing.equals(nestedModel.getQualifiedName())) {
+                            conflicts.add(sqlId + " (" + existing + ", " + nestedModel.getQualifiedName() + ")");
+                        }
+                        nestedFragments.computeIfAbsent(sqlId, id -> {
+                            StringBuilder nested = new StringBuilder();
+                            MybatisSqlGen.appendNestedFragment(nested, id, nestedModel, DEFAULT_TABLE_ALIAS, dbType, templates);
+                            return nested.toString();
+                        });
+                    });
+                }
+            }
+            if (fragment != null) {
+                fragments.put(parameterClass.qualifiedName(), fragment);
+            }
+            indicator.setFraction((double) done.incrementAndGet() / todo.size());
+            return true;
+        });
+        indicator.checkCanceled();
+        return buildReport(parameterClasses, fragments, covered, related, nestedFragments, conflicts);
+    }
+
+    /**
+     * 每个文件单独一次可取消的读操作，写操作到来时读操作让出并在之后重试，扫描大模块时不会长时间阻塞写操作。
+     */
+    private Map<String, ParameterClass> findParameterClasses(VirtualFile[] roots, ProgressIndicator indicator) {
+        SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+        PsiManager psiManager = PsiManager.getInstance(project);
+        Map<String, ParameterClass> parameterClasses = new TreeMap<>();
+        for (VirtualFile file : readInSmartMode(() -> findJavaFiles(roots, indicator))) {
+            indicator.checkCanceled();
+            readInSmartMode(() -> {
+                if (file.isValid() && psiManager.findFile(file) instanceof PsiJavaFile javaFile) {
+                    collectParameterClasses(javaFile, pointerManager, parameterClasses);
+                }
+                return null;
+            });
+        }
+        return parameterClasses;
+    }
+
+    private List<VirtualFile> findJavaFiles(VirtualFile[] roots, ProgressIndicator indicator) {
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile root : roots) {
+            VfsUtilCore.iterateChildrenRecursively(root, file -> !fileIndex.isExcluded(file), file -> {
+                indicator.checkCanceled();
+                if (!file.isDirectory() && "java".equals(file.getExtension()) && fileIndex.isInSourceContent(file)) {
+                    files.add(file);
+                }
+                return true;
+            });
+        }
+        return files;
+    }
+
+    private static void collectParameterClasses(PsiJavaFile javaFile, SmartPointerManager pointerManager, Map<String, ParameterClass> parameterClasses) {
+        for (PsiClass mapper : javaFile.getClasses()) {
+            if (!isMapper(mapper)) {
+                continue;
+            }
+            for (PsiMethod method : mapper.getMethods()) {
+                for (PsiParameter parameter : method.getParameterList().getParameters()) {
+                    PsiClass parameterClass = PsiUtil.resolveClassInType(parameter.getType());
+                    if (!isQueryClass(parameterClass)) {
+                        continue;
+                    }
+                    String usage = mapper.getName() + "#" + method.getName();
+                    ParameterClass existing = parameterClasses.computeIfAbsent(parameterClass.getQualifiedName(), name -> new ParameterClass(name,
+                            parameterClass.getName(), pointerManager.createSmartPsiElementPointer(parameterClass), new ArrayList<>()));
+                    // 读操作被写操作打断后会整体重试，同一个文件的用法不重复记录
+                    if (!existing.usages().contains(usage)) {
+                        existing.usages().add(usage);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 在当前线程的进度下执行，取消进度时抛出 ProcessCanceledException。
+     */
+    private <T> T readInSmartMode(Callable<T> action) {
+        return ReadAction.nonBlocking(action).inSmartMode(project).executeSynchronously();
+    }
+
+    private static boolean isMapper(PsiClass psiClass) {
+        if (!psiClass.isInterface() || psiClass.isAnnotationType()) {
+            return false;
+        }
+        String name = psiClass.getName();
+        return psiClass.hasAnnotation(MAPPER_ANNOTATION) || (name != null && (name.endsWith("Mapper") || name.endsWith("Dao")));
+    }
+
+    private static boolean isQueryClass(PsiClass psiClass) {
+        if (psiClass == null || psiClass instanceof PsiTypeParameter || psiClass.isInterface() || psiClass.isEnum()) {
+            return false;
+        }
+        String qualifiedName = psiClass.getQualifiedName();
+        return qualifiedName != null && !qualifiedName.startsWith("java.") && !qualifiedName.startsWith("javax.")
+                && psiClass.getAllFields().length > 0;
+    }
+
+    private static String buildReport(Map<String, ParameterClass> parameterClasses, Map<String, String> fragments, Map<String, String> covered,
+                                      Map<String, String> related, Map<String, String> nestedFragments, Set<String> conflicts) {
+        StringBuilder report = new StringBuilder();
+        report.append("<!-- MybatisCondition: ").append(fragments.size()).append(" parameter classes, ")
+                .append(covered.size()).append(" already covered -->\n");
+        Set<String> sqlIds = new HashSet<>();
+        for (ParameterClass parameterClass : parameterClasses.values()) {
+            String fragment = fragments.get(parameterClass.qualifiedName());
+            String refId = covered.get(parameterClass.qualifiedName());
+            if (refId != null) {
+                report.append('\n').append("<!-- ").append(parameterClass.qualifiedName())
+                        .append(": covered by <include refid=\"").append(refId).append("\"/> -->\n");
+            }
+            if (fragment == null) {
+                continue;
+            }
+            String sqlId = uniqueSqlId(sqlIds, parameterClass.simpleName());
+            String relatedRefId = related.get(parameterClass.qualifiedName());
+            report.append('\n')
+                    .append("<!-- ").append(parameterClass.qualifiedName()).append(": ")
+                    .append(String.join(", ", parameterClass.usages()))
+                    .append(relatedRefId != null ? "; related: " + relatedRefId : "").append(" -->\n")
+                    .append("<sql id=\"").append(sqlId).append("\">\n");
+            fragment.lines().forEach(line -> report.append("    ").append(line).append('\n'));
+            report.append("</sql>\n");
+        }
+        if (!nestedFragments.isEmpty()) {
+            report.append("\n<!-- Nested criteria fragments shared by the conditions above -->\n");
+            for (String conflict : new TreeSet<>(conflicts)) {
+                report.append("<!-- Conflicting nested fragment id: ").append(conflict).append(" -->\n");
+            }
+            new TreeMap<>(nestedFragments).values().forEach(nested -> report.append('\n').append(nested));
+        }
+        return report.toString();
+    }
+
+    private static String uniqueSqlId(Set<String> sqlIds, String simpleName) {
+        String base = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1) + "Condition";
+        String sqlId = base;
+        for (int i = 2; !sqlIds.add(sqlId); i++) {
+            sqlId = base + i;
+        }
+        return sqlId;
+    }
+
+    private record ParameterClass(String qualifiedName, String simpleName, SmartPsiElementPointer<PsiClass> pointer, List<String> usages) {
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.xml.XmlAttribute;
+import com.intellij.psi.xml.XmlFile;
+import com.intellij.psi.xml.XmlTag;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 索引 Mapper XML 中的 &lt;sql&gt; 和 &lt;select&gt;，键为 parameterType 和引用到的属性名（以 # 开头），
+ * 用于在生成前找出已经覆盖某个参数类的片段，不必每次都扫描全部 XML。
+ */
+public class MapperFragmentIndex extends FileBasedIndexExtension<String, List<MapperFragmentIndex.Entry>> {
+
+    public static final ID<String, List<Entry>> NAME = ID.create("mybatis.condition.mapperFragments");
+    private static final String PROPERTY_KEY_PREFIX = "#";
+    private static final Set<String> STATEMENT_TAGS = Set.of("sql", "select");
+    // 没有 parameterType 时只按属性匹配，#{id}、#{name} 这类常见字段会命中大量无关语句，要求引用足够多的字段
+    private static final int MIN_COVERED_FIELDS = 3;
+    private static final double MIN_COVERAGE = 0.5;
+    private static final int MAX_MATCHES = 20;
+
+    // #{param.userName, jdbcType=VARCHAR}、test="param.userName != null"、collection="param.ids"
+    private static final Pattern BIND_PROPERTY = Pattern.compile("#\\{\\s*([\\w.\\[\\]]+)");
+    private static final Pattern TEST_PROPERTY = Pattern.compile("([A-Za-z_][\\w.]*)\\s*(?:!=|==)\\s*null");
+
+    /**
+     * @param tag           sql 或 select
+     * @param parameterType 未声明时为空字符串
+     * @param properties    引用到的属性名，只保留最后一段，例如 param.userName 记为 userName
+     */
+    public record Entry(String namespace, String tag, String id, String parameterType, int offset, int length, Set<String> properties) {
+
+        public String getRefId() {
+            return namespace.isEmpty() ? id : namespace + "." + id;
+        }
+    }
+
+    /**
+     * 查询结果。
+     *
+     * @param coveredFields 片段引用到的参数类字段数
+     */
+    public record Match(VirtualFile file, Entry entry, int coveredFields) {
+    }
+
+    @Override
+    public @NotNull ID<String, List<Entry>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, List<Entry>, FileContent> getIndexer() {
+        return content -> {
+            // 不是 Mapper 文件时不构建 PSI
+            if (!content.getContentAsText().toString().contains("<mapper")) {
+                return Map.of();
+            }
+            PsiFile psiFile = content.getPsiFile();
+            XmlTag rootTag = psiFile instanceof XmlFile xmlFile ? xmlFile.getRootTag() : null;
+            if (rootTag == null || !"mapper".equals(rootTag.getName())) {
+                return Map.of();
+            }
+            String namespace = Objects.toString(rootTag.getAttributeValue("namespace"), "");
+            Map<String, List<Entry>> result = new HashMap<>();
+            for (XmlTag tag : rootTag.getSubTags()) {
+                if (!STATEMENT_TAGS.contains(tag.getName()) || tag.getAttributeValue("id") == null) {
+                    continue;
+                }
+                Set<String> properties = new TreeSet<>();
+                Set<String> locals = new HashSet<>();
+                collectProperties(tag, properties, locals);
+                // foreach 的 item/index 和 bind 的变量不是参数类的属性
+                properties.removeAll(locals);
+                String parameterType = Objects.toString(tag.getAttributeValue("parameterType"), "").trim();
+                Entry entry = new Entry(namespace, tag.getName(), tag.getAttributeValue("id"), parameterType,
+                        tag.getTextRange().getStartOffset(), tag.getTextLength(), properties);
+                if (!parameterType.isEmpty()) {
+                    result.computeIfAbsent(parameterType, key -> new ArrayList<>()).add(entry);
+                }
+                for (String property : properties) {
+                    result.computeIfAbsent(PROPERTY_KEY_PREFIX + property, key -> new ArrayList<>()).add(entry);
+                }
+            }
+            return result;
+        };
+    }
+
+    private static void collectProperties(XmlTag tag, Set<String> properties, Set<String> locals) {
+        switch (tag.getName()) {
+            case "foreach" -> {
+                addLocal(tag.getAttributeValue("item"), locals);
+                addLocal(tag.getAttributeValue("index"), locals);
+            }
+            case "bind" -> addLocal(tag.getAttributeValue("name"), locals);
+            default -> {
+            }
+        }
+        for (XmlAttribute attribute : tag.getAttributes()) {
+            String value = attribute.getValue();
+            if (value == null) {
+                continue;
+            }
+            if ("test".equals(attribute.getName())) {
+                addMatches(TEST_PROPERTY.matcher(value), properties);
+            } else if ("collection".equals(attribute.getName())) {
+                addProperty(value, properties);
+            }
+        }
+        addMatches(BIND_PROPERTY.matcher(tag.getValue().getText()), properties);
+        for (XmlTag subTag : tag.getSubTags()) {
+            collectProperties(subTag, properties, locals);
+        }
+    }
+
+    private static void addLocal(String name, Set<String> locals) {
+        if (name != null) {
+            locals.add(name.trim());
+        }
+    }
+
+    private static void addMatches(Matcher matcher, Set<String> properties) {
+        while (matcher.find()) {
+            addProperty(matcher.group(1), properties);
+        }
+    }
+
+    private static void addProperty(String path, Set<String> properties) {
+        String property = path.trim().replaceAll("\\[.*?]", "");
+        property = property.substring(property.lastIndexOf('.') + 1);
+        if (!property.isEmpty() && Character.isJavaIdentifierStart(property.charAt(0))) {
+            properties.add(property);
+        }
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<Entry>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Entry> entries) throws IOException {
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    IOUtil.writeUTF(out, entry.namespace());
+                    IOUtil.writeUTF(out, entry.tag());
+                    IOUtil.writeUTF(out, entry.id());
+                    IOUtil.writeUTF(out, entry.parameterType());
+                    out.writeInt(entry.offset());
+                    out.writeInt(entry.length());
+                    out.writeInt(entry.properties().size());
+                    for (String property : entry.properties()) {
+                        IOUtil.writeUTF(out, property);
+                    }
+                }
+            }
+
+            @Override
+            public List<Entry> read(@NotNull DataInput in) throws IOException {
+                int size = in.readInt();
+                List<Entry> entries = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    String namespace = IOUtil.readUTF(in);
+                    String tag = IOUtil.readUTF(in);
+                    String id = IOUtil.readUTF(in);
+                    String parameterType = IOUtil.readUTF(in);
+                    int offset = in.readInt();
+                    int length = in.readInt();
+                    int propertyCount = in.readInt();
+                    Set<String> properties = new TreeSet<>();
+                    for (int j = 0; j < propertyCount; j++) {
+                        properties.add(IOUtil.readUTF(in));
+                    }
+                    entries.add(new Entry(namespace, tag, id, parameterType, offset, length, properties));
+                }
+                return entries;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(XmlFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * 查找与参数类相关的片段：parameterType 为该类（全限定名或别名），或者引用的属性全部是该类的字段、
+     * 并且至少覆盖 MIN_COVERED_FIELDS 个字段和 MIN_COVERAGE 比例的字段。
+     * parameterType 相同的在前，其余按覆盖的字段数降序排列，最多返回 MAX_MATCHES 个。需要在智能模式的读操作中调用。
+     */
+    public static List<Match> find(Project project, ConditionModel model) {
+        Set<String> fieldNames = new HashSet<>();
+        for (ConditionField field : model.getFields()) {
+            fieldNames.add(field.name());
+        }
+        Set<String> typeKeys = typeKeys(model.getQualifiedName());
+        Set<String> keys = new LinkedHashSet<>(typeKeys);
+        for (String fieldName : fieldNames) {
+            keys.add(PROPERTY_KEY_PREFIX + fieldName);
+        }
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        Map<String, Match> matches = new LinkedHashMap<>();
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        for (String key : keys) {
+            index.processValues(NAME, key, null, (file, entries) -> {
+                for (Entry entry : entries) {
+                    String matchKey = file.getPath() + "#" + entry.offset();
+                    if (matches.containsKey(matchKey)) {
+                        continue;
+                    }
+                    int covered = 0;
+                    for (String property : entry.properties()) {
+                        covered += fieldNames.contains(property) ? 1 : 0;
+                    }
+                    boolean sameType = typeKeys.contains(entry.parameterType());
+                    if (sameType || covered == entry.properties().size() && isSignificant(covered, fieldNames.size())) {
+                        matches.put(matchKey, new Match(file, entry, covered));
+                    }
+                }
+                return true;
+            }, scope);
+        }
+        List<Match> result = new ArrayList<>(matches.values());
+        result.sort(Comparator.comparing((Match match) -> !typeKeys.contains(match.entry().parameterType()))
+                .thenComparing(Comparator.comparingInt(Match::coveredFields).reversed()));
+        return result.size() > MAX_MATCHES ? new ArrayList<>(result.subList(0, MAX_MATCHES)) : result;
+    }
+
+    private static boolean isSignificant(int covered, int fieldCount) {
+        return covered >= MIN_COVERED_FIELDS && covered >= fieldCount * MIN_COVERAGE;
+    }
+
+    /**
+     * 返回覆盖该参数类的片段，没有时返回 null。需要在智能模式的读操作中调用。
+     */
+    public static @Nullable Match findCovering(Project project, ConditionModel model) {
+        for (Match match : find(project, model)) {
+            if (isCovering(match, model)) {
+                return match;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 引用了参数类的全部字段，或 parameterType 为该类且引用的字段达到 MIN_COVERED_FIELDS 和 MIN_COVERAGE。
+     * 只用到一两个字段的同类型语句（例如 selectById 中的 #{id}）只算相关，不算覆盖。
+     */
+    public static boolean isCovering(Match match, ConditionModel model) {
+        int fieldCount = model.getFields().size();
+        if (match.coveredFields() == fieldCount) {
+            return true;
+        }
+        return typeKeys(model.getQualifiedName()).contains(match.entry().parameterType()) && isSignificant(match.coveredFields(), fieldCount);
+    }
+
+    /**
+     * parameterType 可能写全限定名，也可能是类型别名（简单类名或首字母小写）。
+     */
+    private static Set<String> typeKeys(String qualifiedName) {
+        if (StrUtil.isBlank(qualifiedName)) {
+            return Set.of();
+        }
+        String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(qualifiedName);
+        keys.add(simpleName);
+        keys.add(Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1));
+        return keys;
+    }
+}
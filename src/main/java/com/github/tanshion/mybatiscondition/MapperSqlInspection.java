@@ -0,0 +1,346 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.XmlElementVisitor;
+import com.intellij.psi.xml.XmlFile;
+import com.intellij.psi.xml.XmlTag;
+import com.intellij.psi.xml.XmlText;
+import com.intellij.xml.util.XmlTagUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 检查 MyBatis Mapper XML 中的慢查询写法：前导通配符 LIKE、列上套函数、随集合大小变化的 foreach IN 列表和 ${} 拼接。
+ * 能改写的给出快速修复，foreach 的修复直接使用当前设置中的 IN 模板生成。
+ */
+public class MapperSqlInspection extends LocalInspectionTool {
+
+    private static final Pattern IN_BEFORE = Pattern.compile("(\\bNOT\\s+)?\\bIN\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BIND_EXPRESSION = Pattern.compile("#\\{([^}]*)}");
+    private static final String COLUMN_MARKER = "\u0000column\u0000";
+    private static final Pattern BIND = Pattern.compile("<bind\\b[^>]*/>");
+
+    @Override
+    public @NotNull PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        if (!(holder.getFile() instanceof XmlFile xmlFile) || !isMapperFile(xmlFile)) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+        MybatisConditionService service = MybatisConditionService.getInstance(holder.getProject());
+        String dbType = service.getSettings().getDbType();
+        TemplateRegistry templates = service.getTemplateRegistry();
+        return new XmlElementVisitor() {
+            @Override
+            public void visitXmlText(@NotNull XmlText text) {
+                for (SlowSqlPatterns.Match match : SlowSqlPatterns.find(text.getText(), dbType)) {
+                    TextRange range = new TextRange(match.start(), match.end());
+                    if (match.replacement() == null) {
+                        holder.registerProblem(text, match.message(), ProblemHighlightType.GENERIC_ERROR_OR_WARNING, range);
+                    } else {
+                        holder.registerProblem(text, match.message(), ProblemHighlightType.GENERIC_ERROR_OR_WARNING, range,
+                                new ReplaceTextFix(fixName(match.kind()), match.replacement()));
+                    }
+                }
+            }
+
+            @Override
+            public void visitXmlTag(@NotNull XmlTag tag) {
+                if ("foreach".equals(tag.getName()) && isUnboundedInList(tag)) {
+                    PsiElement nameElement = XmlTagUtil.getStartTagNameElement(tag);
+                    List<LocalQuickFix> fixes = new ArrayList<>();
+                    String collection = tag.getAttributeValue("collection");
+                    String itemOptions = collection == null ? null : getItemOptions(tag);
+                    if (itemOptions != null) {
+                        // open="IN (" 时模板中的 foreach 会丢掉 IN，只提供数组绑定
+                        TemplateFix padded = tag.getAttributeValue("open").trim().startsWith("(") ? paddedForeach(templates, dbType, collection, itemOptions) : null;
+                        if (padded != null) {
+                            fixes.add(new PadInListFix(padded));
+                        }
+                        // jdbcType 等选项针对单个元素，不能用在数组参数上
+                        TemplateFix array = itemOptions.isEmpty() ? arrayBinding(templates, dbType, collection, isNotIn(tag)) : null;
+                        if (array != null) {
+                            fixes.add(new ArrayBindFix(array));
+                        }
+                    }
+                    holder.registerProblem(nameElement == null ? tag : nameElement,
+                            "IN list length follows the collection size: one cached statement per size, and more than 1000 items fail on Oracle",
+                            fixes.toArray(LocalQuickFix.EMPTY_ARRAY));
+                }
+            }
+        };
+    }
+
+    private static boolean isMapperFile(XmlFile file) {
+        XmlTag rootTag = file.getRootTag();
+        return rootTag != null && "mapper".equals(rootTag.getName()) && rootTag.getAttributeValue("namespace") != null;
+    }
+
+    /**
+     * foreach 生成的是 IN 列表，并且不是已经补齐或分块的写法。
+     */
+    private static boolean isUnboundedInList(XmlTag tag) {
+        String open = tag.getAttributeValue("open");
+        if (open == null || !open.trim().startsWith("(") && !open.trim().toUpperCase().startsWith("IN")) {
+            return false;
+        }
+        if (!open.trim().toUpperCase().startsWith("IN")
+                && !(tag.getPrevSibling() instanceof XmlText text && IN_BEFORE.matcher(text.getText()).find())) {
+            return false;
+        }
+        // 分块模板在 foreach 中用 <if> 插入 ") OR col IN ("
+        if (tag.findFirstSubTag("if") != null || tag.findFirstSubTag("choose") != null) {
+            return false;
+        }
+        // 补齐模板紧跟第二个遍历同一集合的 foreach
+        for (PsiElement next = tag.getNextSibling(); next != null; next = next.getNextSibling()) {
+            if (next instanceof XmlTag nextTag) {
+                return !("foreach".equals(nextTag.getName()) && String.valueOf(tag.getAttributeValue("collection")).equals(nextTag.getAttributeValue("collection")));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 循环体只是 #{item} 时返回其中的选项（例如 ", jdbcType=BIGINT"，没有时为空串），替换为模板时带上，不会丢失内容；
+     * 循环体有其他内容时返回 null。
+     */
+    private static String getItemOptions(XmlTag tag) {
+        String item = tag.getAttributeValue("item");
+        if (item == null) {
+            return null;
+        }
+        Matcher matcher = Pattern.compile("#\\{\\s*" + Pattern.quote(item) + "\\s*(,[^}]*)?}").matcher(tag.getValue().getTrimmedText());
+        return !matcher.matches() ? null : matcher.group(1) == null ? "" : matcher.group(1).trim();
+    }
+
+    /**
+     * foreach 前面是 NOT IN。
+     */
+    private static boolean isNotIn(XmlTag tag) {
+        if (!(tag.getPrevSibling() instanceof XmlText text)) {
+            return false;
+        }
+        Matcher matcher = IN_BEFORE.matcher(text.getText());
+        return matcher.find() && matcher.group(1) != null;
+    }
+
+    /**
+     * 从 IN_PADDED 模板中取出列名之后的两个 foreach。
+     */
+    private static TemplateFix paddedForeach(TemplateRegistry templates, String dbType, String collection, String itemOptions) {
+        String text = render(templates, dbType, TemplateRegistry.IN_PADDED, collection, "IN");
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf("<foreach", text.indexOf(COLUMN_MARKER));
+        int end = text.lastIndexOf("</foreach>");
+        if (start < 0 || end < start) {
+            return null;
+        }
+        // 去掉模板中的缩进，插入时再按 foreach 所在行缩进
+        int lineStart = text.lastIndexOf('\n', start) + 1;
+        String indent = text.substring(lineStart, start);
+        String foreach = text.substring(start, end + "</foreach>".length()).replace("\n" + indent, "\n");
+        if (!itemOptions.isEmpty()) {
+            foreach = BIND_EXPRESSION.matcher(foreach).replaceAll(result -> Matcher.quoteReplacement("#{" + result.group(1).trim() + itemOptions + "}"));
+        }
+        return new TemplateFix(foreach, findBinds(text));
+    }
+
+    /**
+     * 从当前数据库的 IN_ARRAY 模板中取出列名之后的部分，例如 "= ANY(#{idsArray, typeHandler=...})"，没有数组模板的数据库返回 null。
+     *
+     * @param notIn 为 true 时使用 NOT IN 对应的 "!= ALL"
+     */
+    private static TemplateFix arrayBinding(TemplateRegistry templates, String dbType, String collection, boolean notIn) {
+        if (templates.get(dbType, TemplateRegistry.IN_ARRAY) == null) {
+            return null;
+        }
+        String operator = MybatisSqlGen.operationMap.get(notIn ? MybatisSqlGen.NOT_IN_ARRAY : MybatisSqlGen.IN_ARRAY);
+        String text = render(templates, dbType, TemplateRegistry.IN_ARRAY, collection, operator);
+        Matcher matcher = Pattern.compile(Pattern.quote(COLUMN_MARKER) + "\\s*(.*)").matcher(text);
+        return matcher.find() ? new TemplateFix(matcher.group(1).trim(), findBinds(text)) : null;
+    }
+
+    /**
+     * 模板中替换部分用到的 &lt;bind&gt;，需要一起插入到语句中。
+     */
+    private static List<String> findBinds(String text) {
+        List<String> binds = new ArrayList<>();
+        Matcher matcher = BIND.matcher(text);
+        while (matcher.find()) {
+            binds.add(matcher.group());
+        }
+        return binds;
+    }
+
+    private static String render(TemplateRegistry templates, String dbType, String templateId, String collection, String operator) {
+        ConditionTemplate template = templates.get(dbType, templateId);
+        if (template == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        template.appendTo(sb, collection, COLUMN_MARKER, operator);
+        return sb.toString();
+    }
+
+    private static String fixName(SlowSqlPatterns.Kind kind) {
+        return switch (kind) {
+            case LEADING_WILDCARD -> "Use a prefix match (changes results)";
+            case FUNCTION_ON_COLUMN -> "Compare the column with a half-open range";
+            case INTERPOLATION -> "Bind as a parameter with #{}";
+        };
+    }
+
+    private static Document getDocument(Project project, PsiElement element) {
+        return PsiDocumentManager.getInstance(project).getDocument(element.getContainingFile());
+    }
+
+    /**
+     * 替换 [start, end)，再把模板中的 &lt;bind&gt; 按所在行的缩进插入到 start 所在行之前。
+     */
+    private static void replaceWithBinds(Document document, int start, int end, String replacement, List<String> binds) {
+        document.replaceString(start, end, replacement);
+        if (binds.isEmpty()) {
+            return;
+        }
+        int lineStart = document.getLineStartOffset(document.getLineNumber(start));
+        String line = document.getText(new TextRange(lineStart, start));
+        String indent = line.substring(0, line.length() - line.stripLeading().length());
+        StringBuilder sb = new StringBuilder();
+        for (String bind : binds) {
+            sb.append(indent).append(bind).append('\n');
+        }
+        document.insertString(lineStart, sb);
+    }
+
+    /**
+     * @param replacement 替换 foreach（或 IN foreach）的文本
+     * @param binds       replacement 中引用的 &lt;bind&gt; 变量声明
+     */
+    private record TemplateFix(String replacement, List<String> binds) {
+    }
+
+    private static final class ReplaceTextFix implements LocalQuickFix {
+        private final String name;
+        private final String replacement;
+
+        ReplaceTextFix(String name, String replacement) {
+            this.name = name;
+            this.replacement = replacement;
+        }
+
+        @Override
+        public @NotNull String getName() {
+            return name;
+        }
+
+        @Override
+        public @NotNull String getFamilyName() {
+            return "Rewrite slow SQL";
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement element = descriptor.getPsiElement();
+            Document document = getDocument(project, element);
+            TextRange range = descriptor.getTextRangeInElement().shiftRight(element.getTextRange().getStartOffset());
+            if (document != null) {
+                document.replaceString(range.getStartOffset(), range.getEndOffset(), replacement);
+            }
+        }
+    }
+
+    /**
+     * 用 IN_PADDED 模板替换整个 foreach。
+     */
+    private static final class PadInListFix implements LocalQuickFix {
+        private final TemplateFix fix;
+
+        PadInListFix(TemplateFix fix) {
+            this.fix = fix;
+        }
+
+        @Override
+        public @NotNull String getFamilyName() {
+            return "Pad the IN list to a power of two";
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            XmlTag tag = getForeach(descriptor);
+            Document document = tag == null ? null : getDocument(project, tag);
+            if (document != null) {
+                TextRange range = tag.getTextRange();
+                int lineStart = document.getLineStartOffset(document.getLineNumber(range.getStartOffset()));
+                String indent = document.getText(new TextRange(lineStart, range.getStartOffset()));
+                replaceWithBinds(document, range.getStartOffset(), range.getEndOffset(),
+                        indent.isBlank() ? fix.replacement().replace("\n", "\n" + indent) : fix.replacement(), fix.binds());
+            }
+        }
+    }
+
+    /**
+     * 把 "IN &lt;foreach&gt;"（或 "NOT IN &lt;foreach&gt;"）整体替换为数组绑定，只在有 IN_ARRAY 模板的数据库上提供。
+     */
+    private static final class ArrayBindFix implements LocalQuickFix {
+        private final TemplateFix fix;
+
+        ArrayBindFix(TemplateFix fix) {
+            this.fix = fix;
+        }
+
+        @Override
+        public @NotNull String getFamilyName() {
+            return "Bind the collection as an array";
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            XmlTag tag = getForeach(descriptor);
+            Document document = tag == null ? null : getDocument(project, tag);
+            if (document == null) {
+                return;
+            }
+            int start = tag.getTextRange().getStartOffset();
+            if (tag.getPrevSibling() instanceof XmlText text) {
+                Matcher matcher = IN_BEFORE.matcher(text.getText());
+                if (matcher.find()) {
+                    start = text.getTextRange().getStartOffset() + matcher.start();
+                }
+            }
+            replaceWithBinds(document, start, tag.getTextRange().getEndOffset(), fix.replacement(), fix.binds());
+        }
+    }
+
+    private static XmlTag getForeach(ProblemDescriptor descriptor) {
+        PsiElement element = descriptor.getPsiElement();
+        return element instanceof XmlTag tag ? tag : element == null ? null : (XmlTag) element.getParent();
+    }
+}
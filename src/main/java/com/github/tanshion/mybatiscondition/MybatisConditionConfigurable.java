@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.ui.JBUI;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编辑条件模板的设置页，保存与默认模板不同的部分。
+ */
+public class MybatisConditionConfigurable implements Configurable {
+
+    private static final String[] DB_TYPES = {MybatisSqlGen.MYSQL, MybatisSqlGen.POSTGRESQL, MybatisSqlGen.ORACLE};
+
+    private final Project project;
+    private final Map<String, String> templates = new LinkedHashMap<>();
+    private ComboBox<ColumnNamingStrategy> namingStrategyComboBox;
+    private JBIntSpinner nestedDepthSpinner;
+    private ComboBox<String> templateComboBox;
+    private JTextArea templateArea;
+    private JTextArea ddlPathsArea;
+    private String currentKey;
+
+    public MybatisConditionConfigurable(Project project) {
+        this.project = project;
+    }
+
+    @Nls
+    @Override
+    public String getDisplayName() {
+        return "Mybatis Condition";
+    }
+
+    @Nullable
+    @Override
+    public JComponent createComponent() {
+        List<String> keys = new ArrayList<>();
+        for (String templateId : TemplateRegistry.TEMPLATE_IDS) {
+            keys.add(templateId);
+            for (String dbType : DB_TYPES) {
+                keys.add(TemplateRegistry.key(dbType, templateId));
+            }
+        }
+        templateComboBox = new ComboBox<>(keys.toArray(new String[0]));
+        templateArea = new JTextArea(12, 80);
+        templateArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, templateArea.getFont().getSize()));
+        templateComboBox.addActionListener(e -> showTemplate((String) templateComboBox.getSelectedItem()));
+
+        JButton restoreButton = new JButton("Restore Default");
+        restoreButton.addActionListener(e -> {
+            templates.remove(currentKey);
+            templateArea.setText(getDefaultText(currentKey));
+        });
+
+        namingStrategyComboBox = new ComboBox<>(ColumnNamingStrategy.values());
+        nestedDepthSpinner = new JBIntSpinner(MybatisConditionSettings.DEFAULT_NESTED_DEPTH, 0, MybatisConditionSettings.MAX_NESTED_DEPTH);
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("Column naming:"));
+        topPanel.add(namingStrategyComboBox);
+        topPanel.add(new JLabel("Nested object depth:"));
+        topPanel.add(nestedDepthSpinner);
+        topPanel.add(new JLabel("Template:"));
+        topPanel.add(templateComboBox);
+        topPanel.add(restoreButton);
+
+        JPanel panel = new JPanel(new BorderLayout(0, JBUI.scale(5)));
+        panel.add(topPanel, BorderLayout.NORTH);
+        panel.add(new JBScrollPane(templateArea), BorderLayout.CENTER);
+        panel.add(new JLabel("Placeholders: ${param}, ${column}, ${operator}, ${var}. Write $${ for a literal ${"), BorderLayout.SOUTH);
+
+        // DDL 文件或迁移脚本目录，每行一个
+        ddlPathsArea = new JTextArea(4, 80);
+        JPanel ddlPanel = new JPanel(new BorderLayout(0, JBUI.scale(5)));
+        ddlPanel.add(new JLabel("DDL files or migration folders (one per line, relative to the project root):"), BorderLayout.NORTH);
+        ddlPanel.add(new JBScrollPane(ddlPathsArea), BorderLayout.CENTER);
+
+        JPanel root = new JPanel(new BorderLayout(0, JBUI.scale(10)));
+        root.add(panel, BorderLayout.CENTER);
+        root.add(ddlPanel, BorderLayout.SOUTH);
+        reset();
+        return root;
+    }
+
+    @Override
+    public boolean isModified() {
+        storeCurrent();
+        MybatisConditionSettings settings = MybatisConditionSettings.getInstance(project);
+        return namingStrategyComboBox.getSelectedItem() != settings.getNamingStrategy() || nestedDepthSpinner.getNumber() != settings.getNestedDepth()
+                || !templates.equals(settings.getTemplates())
+                || !getDdlPaths().equals(settings.getDdlPaths());
+    }
+
+    @Override
+    public void apply() throws ConfigurationException {
+        storeCurrent();
+        for (Map.Entry<String, String> entry : templates.entrySet()) {
+            try {
+                ConditionTemplate.compile(entry.getValue());
+            } catch (IllegalArgumentException e) {
+                throw new ConfigurationException(entry.getKey() + ": " + e.getMessage());
+            }
+        }
+        MybatisConditionSettings settings = MybatisConditionSettings.getInstance(project);
+        settings.setTemplates(templates);
+        if (namingStrategyComboBox.getSelectedItem() != settings.getNamingStrategy()) {
+            settings.setNamingStrategy((ColumnNamingStrategy) namingStrategyComboBox.getSelectedItem());
+        }
+        if (nestedDepthSpinner.getNumber() != settings.getNestedDepth()) {
+            settings.setNestedDepth(nestedDepthSpinner.getNumber());
+        }
+        if (!getDdlPaths().equals(settings.getDdlPaths())) {
+            settings.setDdlPaths(getDdlPaths());
+        }
+    }
+
+    @Override
+    public void reset() {
+        MybatisConditionSettings settings = MybatisConditionSettings.getInstance(project);
+        namingStrategyComboBox.setSelectedItem(settings.getNamingStrategy());
+        nestedDepthSpinner.setNumber(settings.getNestedDepth());
+        ddlPathsArea.setText(String.join("\n", settings.getDdlPaths()));
+        templates.clear();
+        templates.putAll(settings.getTemplates());
+        currentKey = null;
+        showTemplate((String) templateComboBox.getSelectedItem());
+    }
+
+    private List<String> getDdlPaths() {
+        List<String> paths = new ArrayList<>();
+        for (String line : ddlPathsArea.getText().split("\n")) {
+            if (!line.isBlank()) {
+                paths.add(line.trim());
+            }
+        }
+        return paths;
+    }
+
+    private void showTemplate(String key) {
+        storeCurrent();
+        currentKey = key;
+        templateArea.setText(templates.getOrDefault(key, getDefaultText(key)));
+        templateArea.setCaretPosition(0);
+    }
+
+    private void storeCurrent() {
+        if (currentKey == null) {
+            return;
+        }
+        String text = templateArea.getText();
+        if (text.isEmpty() || text.equals(getDefaultText(currentKey))) {
+            templates.remove(currentKey);
+        } else {
+            templates.put(currentKey, text);
+        }
+    }
+
+    private String getDefaultText(String key) {
+        Map<String, String> defaults = TemplateRegistry.getDefaultTemplates();
+        String text = defaults.get(key);
+        if (text == null) {
+            // 数据库专用模板未定义时显示通用模板
+            text = templates.getOrDefault(key.substring(key.indexOf(':') + 1), defaults.get(key.substring(key.indexOf(':') + 1)));
+        }
+        return text == null ? "" : text;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiClass;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 项目级的生成服务，持有本项目的设置、模板和后台生成线程池，随项目关闭一起释放。
+ * 字段模型缓存挂在各自项目的 PsiClass 上，多个项目之间互不影响，可在任意线程中调用。
+ */
+public final class MybatisConditionService implements Disposable {
+
+    private final Project project;
+    private final ExecutorService executor;
+
+    public MybatisConditionService(Project project) {
+        this.project = project;
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("MybatisCondition",
+                Runtime.getRuntime().availableProcessors(), this);
+    }
+
+    public static MybatisConditionService getInstance(Project project) {
+        return project.getService(MybatisConditionService.class);
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public MybatisConditionSettings getSettings() {
+        return MybatisConditionSettings.getInstance(project);
+    }
+
+    public TemplateRegistry getTemplateRegistry() {
+        return getSettings().getTemplateRegistry();
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 需要在读操作中调用。
+     */
+    public ConditionModel getModel(PsiClass psiClass) {
+        if (psiClass.getProject() != project) {
+            throw new IllegalArgumentException("Class " + psiClass.getQualifiedName() + " does not belong to project " + project.getName());
+        }
+        return ConditionModelBuilder.build(psiClass);
+    }
+
+    /**
+     * 设置的 DDL 文件解析得到的表结构，未配置时为空。需要在读操作中调用，首次解析可能较慢，不要在 EDT 上调用。
+     */
+    public DatabaseSchema getSchema() {
+        return DdlSchemaLoader.getSchema(project);
+    }
+
+    /**
+     * 已有 Mapper XML 中与该参数类相关的 &lt;sql&gt;/&lt;select&gt;，按覆盖的字段数降序。需要在智能模式的读操作中调用。
+     */
+    public List<MapperFragmentIndex.Match> findExistingFragments(ConditionModel model) {
+        try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.FRAGMENT_LOOKUP, model.getQualifiedName())) {
+            return MapperFragmentIndex.find(project, model);
+        }
+    }
+
+    public MapperConditionBulkGen createBulkGenerator() {
+        MybatisConditionSettings settings = getSettings();
+        return new MapperConditionBulkGen(this, settings.getDbType(), settings.getTemplateRegistry());
+    }
+
+    @Override
+    public void dispose() {
+        // 线程池以本服务为父 Disposable，随服务一起关闭
+    }
+}
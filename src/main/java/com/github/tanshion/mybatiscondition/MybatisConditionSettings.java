@@ -16,17 +16,34 @@ package com.github.tanshion.mybatiscondition;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @State(
         name = "MybatisConditionSettings",
         storages = @Storage("mybatis-condition.xml")
 )
 public class MybatisConditionSettings implements PersistentStateComponent<MybatisConditionSettings.State> {
 
+    public static final int DEFAULT_NESTED_DEPTH = 3;
+    public static final int MAX_NESTED_DEPTH = 10;
+    private static final Logger LOG = Logger.getInstance(MybatisConditionSettings.class);
+
     private State myState = new State();
+    private volatile TemplateRegistry templateRegistry;
+    // 影响字段模型的设置变化时递增，用于让模型缓存失效
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+    // DDL 路径变化时递增，用于让表结构缓存失效
+    private final SimpleModificationTracker schemaModificationTracker = new SimpleModificationTracker();
 
     public static MybatisConditionSettings getInstance(Project project) {
         return project.getService(MybatisConditionSettings.class);
@@ -41,6 +58,17 @@ public class MybatisConditionSettings implements PersistentStateComponent<Mybati
     @Override
     public void loadState(@NotNull State state) {
         myState = state;
+        templateRegistry = null;
+        modificationTracker.incModificationCount();
+        schemaModificationTracker.incModificationCount();
+    }
+
+    public ModificationTracker getModificationTracker() {
+        return modificationTracker;
+    }
+
+    public ModificationTracker getSchemaModificationTracker() {
+        return schemaModificationTracker;
     }
 
     public String getDbType() {
@@ -51,7 +79,64 @@ public class MybatisConditionSettings implements PersistentStateComponent<Mybati
         myState.dbType = dbType;
     }
 
+    public ColumnNamingStrategy getNamingStrategy() {
+        return ColumnNamingStrategy.of(myState.namingStrategy);
+    }
+
+    public void setNamingStrategy(ColumnNamingStrategy namingStrategy) {
+        myState.namingStrategy = namingStrategy.name();
+        modificationTracker.incModificationCount();
+    }
+
+    public Map<String, String> getTemplates() {
+        return myState.templates;
+    }
+
+    public void setTemplates(Map<String, String> templates) {
+        myState.templates = new LinkedHashMap<>(templates);
+        templateRegistry = null;
+    }
+
+    public int getNestedDepth() {
+        return myState.nestedDepth;
+    }
+
+    public void setNestedDepth(int nestedDepth) {
+        myState.nestedDepth = nestedDepth;
+        modificationTracker.incModificationCount();
+    }
+
+    public List<String> getDdlPaths() {
+        return myState.ddlPaths;
+    }
+
+    public void setDdlPaths(List<String> ddlPaths) {
+        myState.ddlPaths = new ArrayList<>(ddlPaths);
+        schemaModificationTracker.incModificationCount();
+    }
+
+    /**
+     * 默认模板加上用户自定义模板编译后的结果，模板修改前一直复用同一个实例。
+     */
+    public TemplateRegistry getTemplateRegistry() {
+        TemplateRegistry registry = templateRegistry;
+        if (registry == null) {
+            registry = new TemplateRegistry(myState.templates);
+            // 设置页面保存时已校验，这里只会是手动修改过的配置文件
+            registry.getErrors().forEach((key, error) -> LOG.warn("Ignoring invalid template " + key + ": " + error));
+            templateRegistry = registry;
+        }
+        return registry;
+    }
+
     public static class State {
         public String dbType = MybatisSqlGen.MYSQL; // 默认值
+        // 自定义模板，键为 "模板类型" 或 "数据库类型:模板类型"
+        public Map<String, String> templates = new LinkedHashMap<>();
+        public String namingStrategy = ColumnNamingStrategy.SNAKE_CASE.name();
+        // 嵌套查询对象最多展开的层数，0 表示忽略嵌套对象字段
+        public int nestedDepth = DEFAULT_NESTED_DEPTH;
+        // DDL 文件或迁移脚本目录，相对路径基于项目根目录
+        public List<String> ddlPaths = new ArrayList<>();
     }
 }
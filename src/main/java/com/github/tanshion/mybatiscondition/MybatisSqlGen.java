@@ -13,16 +13,8 @@
  */
 package com.github.tanshion.mybatiscondition;
 
-import com.intellij.psi.*;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiUtil;
-
-import java.time.LocalDateTime;
-import java.util.Date;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-
-import static com.github.tanshion.mybatiscondition.OpenMybatisSqlGenDialogAction.project;
 
 public class MybatisSqlGen {
 
@@ -33,26 +25,49 @@ public class MybatisSqlGen {
 
     public static final String IN = "IN";
     public static final String NOT_IN = "NOT IN";
+    public static final String IN_ARRAY = "= ANY";
+    public static final String NOT_IN_ARRAY = "!= ALL";
+    public static final String IN_CHUNKED = "IN (chunked)";
+    public static final String IN_PADDED = "IN (padded)";
     public static final String BETWEEN = "BETWEEN";
     public static final String NOT_BETWEEN = "NOT BETWEEN";
+    public static final String HALF_OPEN = "[from, to)";
     public static final String IS_NULL = "IS NULL";
     public static final String NOT_NULL = "NOT NULL";
     public static final String LIKE = "LIKE";
+    public static final String STARTS_WITH = "STARTS WITH";
+    public static final String ENDS_WITH = "ENDS WITH";
+    public static final String ILIKE = "ILIKE";
     public static final String EQ = "=";
     public static final String NOT_EQ = "!=";
     public static final String GT = ">";
     public static final String LT = "<";
     public static final String GTE = ">=";
     public static final String LTE = "<=";
+    public static final String INCLUDE = "include";
+
+    // 嵌套对象的 <sql> 片段通过 <include> 的属性接收参数路径和 <bind> 变量名前缀
+    public static final String PREFIX_PROPERTY = "prefix";
+    public static final String VAR_PROPERTY = "var";
+    // 嵌套片段中列的表别名，同一类型的多个字段（例如 owner / creator）可以在 include 时指向不同的关联表
+    public static final String ALIAS_PROPERTY = "alias";
 
     public static final Map<String, String> operationMap = Map.ofEntries(
             Map.entry(IN, "IN"),
             Map.entry(NOT_IN, "NOT IN"),
+            Map.entry(IN_ARRAY, "= ANY"),
+            Map.entry(NOT_IN_ARRAY, "!= ALL"),
+            Map.entry(IN_CHUNKED, "IN"),
+            Map.entry(IN_PADDED, "IN"),
             Map.entry(BETWEEN, "BETWEEN"),
             Map.entry(NOT_BETWEEN, "NOT BETWEEN"),
+            Map.entry(HALF_OPEN, "&gt;="),
             Map.entry(IS_NULL, "IS NULL"),
             Map.entry(NOT_NULL, "NOT NULL"),
             Map.entry(LIKE, "LIKE"),
+            Map.entry(STARTS_WITH, "LIKE"),
+            Map.entry(ENDS_WITH, "LIKE"),
+            Map.entry(ILIKE, "ILIKE"),
             Map.entry(EQ, "="),
             Map.entry(NOT_EQ, "!="),
             Map.entry(GT, "&gt;"),
@@ -62,156 +77,125 @@ public class MybatisSqlGen {
     );
 
 
-    public static String generateMyBatisConditions(PsiClass psiClass, String tableAlias, String paramPrefix, Map<String, String> fieldOperation, String dbType) {
-        StringBuilder conditions = new StringBuilder();
-        for (PsiField field : psiClass.getAllFields()) {
-            String fieldName = field.getName();
-            String underlineFieldName = StrUtil.toUnderlineCase(fieldName);
-            String fullParamName = (StrUtil.isBlank(paramPrefix) ? "" : paramPrefix + ".") + fieldName;
-            String fullTableName = (StrUtil.isBlank(tableAlias) ? "" : tableAlias + ".") + underlineFieldName;
-
-            String operationKey = fieldOperation.get(fieldName);
-            operationKey = StrUtil.isBlank(operationKey) ? EQ : operationKey;
-            String operation = operationMap.get(operationKey);
-            if (field.getType().getCanonicalText().equals(CommonClassNames.JAVA_LANG_STRING)) {
-                //对应 like eq
-                if (LIKE.equals(operationKey)) {
-                    appendLikeCondition(conditions, fullParamName, fullTableName, operation, dbType);
-                } else {
-                    appendEqCondition(conditions, fullParamName, fullTableName);
-                }
-            } else if (isListOfType(field, LocalDateTime.class, Date.class)) {
-                //对应 between
-                appendBetweenCondition(conditions, fullParamName, fullTableName, operation);
-            } else if (isList(field)) {
-                //对应 in notIn between
-                if (IN.equals(operationKey) || NOT_IN.equals(operationKey)) {
-                    appendInCondition(conditions, fullParamName, fullTableName, operation);
-                } else if (BETWEEN.equals(operationKey) || NOT_BETWEEN.equals(operationKey)) {
-                    appendBetweenCondition(conditions, fullParamName, fullTableName, operation);
-                }
-            } else if (field.getType().getCanonicalText().equals(CommonClassNames.JAVA_LANG_BOOLEAN) || field.getType().getCanonicalText().equals("boolean")) {
-                //对应 boolean
-                appendEqCondition(conditions, fullParamName, fullTableName);
-            } else {
-                //对应 eq notEq gt lt gte lte
-                appendGeneralCondition(conditions, fullParamName, fullTableName, operation);
-            }
-        }
-
-        return conditions.toString();
+    public static String generateMyBatisConditions(List<ConditionField> fields, String tableAlias, String paramPrefix, String dbType) {
+        return generateMyBatisConditions(fields, tableAlias, paramPrefix, dbType, TemplateRegistry.getDefault());
     }
 
-    public static boolean isList(PsiField field) {
-        // 获取字段类型
-        PsiType fieldType = field.getType();
-
-        // 获取字段类型的类
-        PsiClass fieldClass = PsiUtil.resolveClassInType(fieldType);
-
-        if (fieldClass == null) {
-            return false;
-        }
-        JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(project);
-        PsiClass listClass = psiFacade.findClass(CommonClassNames.JAVA_UTIL_COLLECTION, GlobalSearchScope.allScope(project));
-        if (listClass == null) {
-            return false;
+    public static String generateMyBatisConditions(List<ConditionField> fields, String tableAlias, String paramPrefix, String dbType, TemplateRegistry templates) {
+        StringBuilder conditions = new StringBuilder(fields.size() * 128);
+        for (ConditionField field : fields) {
+            appendCondition(conditions, field, tableAlias, paramPrefix, dbType, templates);
         }
-        // 检查字段类型是否为集合类型
-        return fieldClass.isInheritor(listClass, true);
+        return conditions.toString();
     }
 
-    public static boolean isListOfType(PsiField field, Class<?>... elementType) {
-        JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(project);
-        PsiClass listClass = psiFacade.findClass(CommonClassNames.JAVA_UTIL_COLLECTION, GlobalSearchScope.allScope(project));
-        if (listClass == null) {
-            return false;
-        }
-        // 获取字段类型
-        PsiType fieldType = field.getType();
-
-        // 检查字段类型是否为 List
-        if (!(fieldType instanceof PsiClassType classType)) {
-            return false;
-        }
-
-        PsiClass fieldClass = classType.resolve();
+    public static void appendCondition(StringBuilder conditions, ConditionField field, String tableAlias, String paramPrefix, String dbType, TemplateRegistry templates) {
+        appendCondition(conditions, field, tableAlias, paramPrefix, null, dbType, templates);
+    }
 
-        if (fieldClass == null || !fieldClass.isInheritor(listClass, true)) {
-            return false;
+    /**
+     * @param varPrefix &lt;bind&gt; 变量名前缀，为 null 时由参数全名转换得到；嵌套片段中为 ${var}，避免多次 include 时变量重名
+     */
+    public static void appendCondition(StringBuilder conditions, ConditionField field, String tableAlias, String paramPrefix, String varPrefix,
+                                       String dbType, TemplateRegistry templates) {
+        String fullParamName = (StrUtil.isBlank(paramPrefix) ? "" : paramPrefix + ".") + field.name();
+        String var = varPrefix == null ? null : varPrefix + "_" + field.name();
+        if (field.kind() == FieldKind.NESTED) {
+            appendInclude(conditions, field, fullParamName, var != null ? var : StrUtil.toVariableName(fullParamName), tableAlias);
+            return;
         }
-
-        // 获取泛型参数
-        PsiType[] parameters = classType.getParameters();
-        if (parameters.length != 1) {
-            return false;
+        String operationKey = StrUtil.isBlank(field.operator()) ? EQ : field.operator();
+        String templateId = getTemplateId(field.kind(), operationKey);
+        if (templateId == null) {
+            return;
         }
-
-        // 获取泛型参数的类
-        PsiClass parameterClass = PsiUtil.resolveClassInType(parameters[0]);
-        if (parameterClass == null) {
-            return false;
+        String fullTableName = (StrUtil.isBlank(tableAlias) ? "" : tableAlias + ".") + field.column();
+        ConditionTemplate template = templates.get(dbType, templateId);
+        if (template == null) {
+            // 该数据库没有对应的 IN 模板时退回普通的 foreach IN
+            template = templates.get(dbType, TemplateRegistry.IN);
+            operationKey = NOT_IN_ARRAY.equals(operationKey) ? NOT_IN : IN;
         }
-
-        // 检查泛型参数是否匹配
-        for (Class<?> type : elementType) {
-            if (Objects.equals(parameterClass.getQualifiedName(), type.getCanonicalName())) {
-                return true;
-            }
-        }
-        return false;
+        template.appendTo(conditions, fullParamName, fullTableName, operationMap.get(operationKey), var);
     }
 
-
-    private static void appendLikeCondition(StringBuilder conditions, String fullParamName, String fullTableName, String operation, String dbType) {
-        if (ORACLE.equals(dbType)) {
-            conditions.append(String.format("""
-                    <if test="%s != null and %s != ''">
-                        AND %s LIKE CONCAT(CONCAT('%%',#{%s}),'%%')
-                    </if>
-                    """, fullParamName, fullParamName, fullTableName, fullParamName));
-        } else {
-            conditions.append(String.format("""
-                    <if test="%s != null and %s != ''">
-                        AND %s LIKE CONCAT('%%', #{%s}, '%%')
-                    </if>
-                    """, fullParamName, fullParamName, fullTableName, fullParamName));
+    private static void appendInclude(StringBuilder conditions, ConditionField field, String fullParamName, String var, String tableAlias) {
+        conditions.append("<if test=\"").append(fullParamName).append(" != null\">\n")
+                .append("    <include refid=\"").append(field.column()).append("\">\n")
+                .append("        <property name=\"").append(PREFIX_PROPERTY).append("\" value=\"").append(fullParamName).append("\"/>\n")
+                .append("        <property name=\"").append(VAR_PROPERTY).append("\" value=\"").append(var).append("\"/>\n");
+        if (!StrUtil.isBlank(tableAlias)) {
+            conditions.append("        <property name=\"").append(ALIAS_PROPERTY).append("\" value=\"").append(tableAlias).append("\"/>\n");
         }
-
+        conditions.append("    </include>\n")
+                .append("</if>\n");
     }
 
-    private static void appendEqCondition(StringBuilder conditions, String fullParamName, String fullTableName) {
-        conditions.append(String.format("""
-                <if test="%s != null and %s != ''">
-                    AND %s = #{%s}
-                </if>
-                """, fullParamName, fullParamName, fullTableName, fullParamName));
-    }
-
-    private static void appendBetweenCondition(StringBuilder conditions, String fullParamName, String fullTableName, String operation) {
-        conditions.append(String.format("""
-                <if test="%s != null and %s.size() == 2">
-                    AND %s %s #{%s[0]} AND #{%s[1]}
-                </if>
-                """, fullParamName, fullParamName, fullTableName, operation, fullParamName, fullParamName));
+    /**
+     * 嵌套对象的 &lt;sql&gt; 片段，每个类型一个，需要放在 mapper 下（不能放在 &lt;where&gt; 中）。
+     *
+     * @param nestedModels &lt;sql&gt; id 到嵌套类型字段模型
+     */
+    public static void appendNestedFragments(StringBuilder sb, Map<String, ConditionModel> nestedModels, String tableAlias, String dbType, TemplateRegistry templates) {
+        if (nestedModels.isEmpty()) {
+            return;
+        }
+        sb.append("\n<!-- Nested criteria fragments, declare once at mapper level -->\n");
+        nestedModels.forEach((sqlId, model) -> {
+            sb.append('\n');
+            appendNestedFragment(sb, sqlId, model, tableAlias, dbType, templates);
+        });
     }
 
-    private static void appendInCondition(StringBuilder conditions, String fullParamName, String fullTableName, String operation) {
-        conditions.append(String.format("""
-                <if test="%s != null and %s.size() > 0">
-                    AND %s %s
-                    <foreach item="item" index="index" collection="%s" open="(" separator="," close=")">
-                        #{item}
-                    </foreach>
-                </if>
-                """, fullParamName, fullParamName, fullTableName, operation, fullParamName));
+    public static void appendNestedFragment(StringBuilder sb, String sqlId, ConditionModel model, String tableAlias, String dbType, TemplateRegistry templates) {
+        String paramPrefix = "${" + PREFIX_PROPERTY + "}";
+        String varPrefix = "${" + VAR_PROPERTY + "}";
+        // 没有表别名时列不加前缀，include 也不传 alias
+        String alias = StrUtil.isBlank(tableAlias) ? tableAlias : "${" + ALIAS_PROPERTY + "}";
+        StringBuilder body = new StringBuilder(model.getFields().size() * 128);
+        for (ConditionField field : model.getFields()) {
+            appendCondition(body, field, alias, paramPrefix, varPrefix, dbType, templates);
+        }
+        sb.append("<sql id=\"").append(sqlId).append("\">\n");
+        body.toString().lines().forEach(line -> sb.append("    ").append(line).append('\n'));
+        sb.append("</sql>\n");
     }
 
-    private static void appendGeneralCondition(StringBuilder conditions, String fullParamName, String fullTableName, String operation) {
-        conditions.append(String.format("""
-                <if test="%s != null">
-                    AND %s %s #{%s}
-                </if>
-                """, fullParamName, fullTableName, operation, fullParamName));
+    public static String getTemplateId(FieldKind kind, String operationKey) {
+        return switch (kind) {
+            //对应 like eq
+            case STRING -> switch (operationKey) {
+                case LIKE -> TemplateRegistry.LIKE;
+                case STARTS_WITH -> TemplateRegistry.STARTS_WITH;
+                case ENDS_WITH -> TemplateRegistry.ENDS_WITH;
+                case ILIKE -> TemplateRegistry.ILIKE;
+                default -> TemplateRegistry.EQ;
+            };
+            //对应 between 或半开区间
+            case TEMPORAL_COLLECTION -> HALF_OPEN.equals(operationKey) ? TemplateRegistry.RANGE : TemplateRegistry.BETWEEN;
+            //对应 in notIn between
+            case COLLECTION -> {
+                if (IN.equals(operationKey) || NOT_IN.equals(operationKey)) {
+                    yield TemplateRegistry.IN;
+                } else if (IN_ARRAY.equals(operationKey) || NOT_IN_ARRAY.equals(operationKey)) {
+                    yield TemplateRegistry.IN_ARRAY;
+                } else if (IN_CHUNKED.equals(operationKey)) {
+                    yield TemplateRegistry.IN_CHUNKED;
+                } else if (IN_PADDED.equals(operationKey)) {
+                    yield TemplateRegistry.IN_PADDED;
+                } else if (BETWEEN.equals(operationKey) || NOT_BETWEEN.equals(operationKey)) {
+                    yield TemplateRegistry.BETWEEN;
+                } else if (HALF_OPEN.equals(operationKey)) {
+                    yield TemplateRegistry.RANGE;
+                }
+                yield null;
+            }
+            //对应 boolean
+            case BOOLEAN -> TemplateRegistry.EQ;
+            //嵌套对象单独生成 <include>
+            case NESTED -> null;
+            //对应 eq notEq gt lt gte lte，成对的起止字段也在这里
+            default -> TemplateRegistry.COMPARE;
+        };
     }
 }
@@ -13,41 +13,86 @@
  */
 package com.github.tanshion.mybatiscondition;
 
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.EditorKind;
+import com.intellij.openapi.editor.ex.EditorEx;
+import com.intellij.openapi.editor.highlighter.EditorHighlighterFactory;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileTypes.FileTypeManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.DialogWrapper;
-import com.intellij.psi.CommonClassNames;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiField;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.SearchTextField;
+import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
 import com.intellij.util.ui.JBUI;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.concurrency.CancellablePromise;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
-import java.time.LocalDateTime;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-
-import static com.github.tanshion.mybatiscondition.MybatisSqlGen.isList;
-import static com.github.tanshion.mybatiscondition.MybatisSqlGen.isListOfType;
-import static com.github.tanshion.mybatiscondition.OpenMybatisSqlGenDialogAction.project;
+import java.util.*;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 public class MybatisSqlGenDialog extends DialogWrapper {
+    private final Project project;
+    private final MybatisConditionService service;
     private JTextField tableAliasField;
     private JTextField paramPrefixField;
-    private JTextArea codeArea;
-    private final PsiClass psiClass;
+    private Document codeDocument;
+    private Editor codeEditor;
+    private final ConditionModel model;
+    private final TemplateRegistry templates;
     Map<String, String> fieldOperation;
     private ComboBox<String> dbTypeComboBox;
-
-
-    public MybatisSqlGenDialog(Project project, PsiClass psiClass) {
+    private FieldTableModel fieldTableModel;
+    private CancellablePromise<ConditionFragment> pendingUpdate;
+    private ConditionFragment fragment;
+    // 按所选表的索引排列后的模型，未选表时与 model 相同
+    private ConditionModel renderModel;
+    private DatabaseSchema schema = DatabaseSchema.EMPTY;
+    private TableSchema table;
+    private Map<String, IndexAdvisor.Hint> indexHints = Map.of();
+    private ComboBox<String> tableComboBox;
+    private ComboBox<OutputMode> outputModeComboBox;
+    private JTextField sortKeysField;
+    private JBIntSpinner batchSizeSpinner;
+    private JBLabel indexStatusLabel;
+    private JBLabel existingFragmentsLabel;
+    // 已有 Mapper XML 中相关片段的展示文本，后台索引查询完成前为空
+    private String existingFragments = "<!-- No existing mapper fragment references this class -->\n";
+
+
+    /**
+     * @param model 在后台读操作中构建好的字段模型快照，对话框不再访问 PSI
+     */
+    public MybatisSqlGenDialog(Project project, ConditionModel model) {
         super(project);
-        this.psiClass = psiClass;
+        this.project = project;
+        this.service = MybatisConditionService.getInstance(project);
+        this.model = model;
+        this.renderModel = model;
+        this.templates = service.getTemplateRegistry();
         fieldOperation = new HashMap<>();
+        for (ConditionField field : model.getFields()) {
+            fieldOperation.put(field.name(), field.operator());
+        }
         init();
         setTitle("MyBatis Condition Generator");
         setResizable(true);
@@ -77,6 +122,8 @@ public class MybatisSqlGenDialog extends DialogWrapper {
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.insets = JBUI.insets(5);
 
+        fieldTableModel = new FieldTableModel();
+
         // DB Type Label
         JLabel dbTypeLabel = new JLabel("DB Type:");
         gbc.gridx = 0;
@@ -86,11 +133,22 @@ public class MybatisSqlGenDialog extends DialogWrapper {
         // DB Type ComboBox
         String[] dbTypes = {MybatisSqlGen.MYSQL, MybatisSqlGen.POSTGRESQL, MybatisSqlGen.ORACLE};
         dbTypeComboBox = new ComboBox<>(dbTypes);
+        // 设置默认值
+        String savedDbType = service.getSettings().getDbType();
+        if (savedDbType != null) {
+            dbTypeComboBox.setSelectedItem(savedDbType);
+        }
         dbTypeComboBox.addActionListener(e -> {
             String selectedDbType = (String) dbTypeComboBox.getSelectedItem();
             // 保存配置
-            MybatisConditionSettings.getInstance(project).setDbType(selectedDbType);
-            updateCode();
+            service.getSettings().setDbType(selectedDbType);
+            // 切换数据库后不再可用的操作符恢复为默认值
+            for (ConditionField field : model.getFields()) {
+                if (!Arrays.asList(field.kind().getOperations(selectedDbType)).contains(fieldOperation.get(field.name()))) {
+                    fieldTableModel.setOperation(field.name(), field.kind().getDefaultOperation());
+                }
+            }
+            applyEdits(fragment -> fragment.setDbType(selectedDbType));
         });
         gbc.gridx = 1;
         gbc.gridy = 0;
@@ -116,84 +174,166 @@ public class MybatisSqlGenDialog extends DialogWrapper {
         gbc.gridy = 2;
         leftPanel.add(paramPrefixField, gbc);
 
-        JLabel fieldsLabel = new JLabel("Fields:");
+        // 表结构在后台加载，加载完成前不可选
+        tableComboBox = new ComboBox<>();
+        tableComboBox.setEnabled(false);
+        tableComboBox.addActionListener(e -> {
+            table = schema.getTable((String) tableComboBox.getSelectedItem());
+            refreshIndexAdvice();
+            if (getOutputMode() != OutputMode.CONDITIONS) {
+                // 其他输出用到所选表的主键和表名
+                updateCode();
+            }
+        });
+        JLabel tableLabel = new JLabel("Table:");
         gbc.gridx = 0;
         gbc.gridy = 3;
-        gbc.gridwidth = 2;
-        leftPanel.add(fieldsLabel, gbc);
-
-        JPanel fieldsPanel = new JPanel(new GridBagLayout());
-        GridBagConstraints fieldsGbc = new GridBagConstraints();
-        fieldsGbc.fill = GridBagConstraints.HORIZONTAL;
-        fieldsGbc.insets = JBUI.insets(5);
-        fieldsGbc.gridx = 0;
-        fieldsGbc.gridy = 0;
-
-        DefaultListModel<String> fieldListModel = new DefaultListModel<>();
-        for (PsiField field : psiClass.getAllFields()) {
-            fieldListModel.addElement(field.getName());
-            String[] operations;
-            if (field.getType().getCanonicalText().equals(CommonClassNames.JAVA_LANG_STRING)) {
-                operations = new String[]{MybatisSqlGen.EQ, MybatisSqlGen.LIKE};
-                fieldOperation.put(field.getName(), MybatisSqlGen.EQ);
-            } else if (isListOfType(field, LocalDateTime.class, Date.class)) {
-                operations = new String[]{MybatisSqlGen.BETWEEN};
-                fieldOperation.put(field.getName(), MybatisSqlGen.BETWEEN);
-            } else if (isList(field)) {
-                operations = new String[]{MybatisSqlGen.IN, MybatisSqlGen.NOT_IN, MybatisSqlGen.BETWEEN};
-                fieldOperation.put(field.getName(), MybatisSqlGen.IN);
-            } else if (field.getType().getCanonicalText().equals(CommonClassNames.JAVA_LANG_BOOLEAN) || field.getType().getCanonicalText().equals("boolean")) {
-                operations = new String[]{MybatisSqlGen.EQ};
-                fieldOperation.put(field.getName(), MybatisSqlGen.EQ);
-            } else {
-                operations = new String[]{MybatisSqlGen.EQ, MybatisSqlGen.NOT_EQ, MybatisSqlGen.GT, MybatisSqlGen.LT, MybatisSqlGen.GTE, MybatisSqlGen.LTE};
-                fieldOperation.put(field.getName(), MybatisSqlGen.EQ);
+        leftPanel.add(tableLabel, gbc);
+        gbc.gridx = 1;
+        gbc.gridy = 3;
+        leftPanel.add(tableComboBox, gbc);
+
+        // 字段表格，只渲染可见行
+        JBTable fieldTable = new JBTable(fieldTableModel);
+        fieldTable.getColumnModel().getColumn(FieldTableModel.OPERATOR_COLUMN).setCellEditor(new OperatorCellEditor(fieldTable, new ComboBox<>()));
+        TableRowSorter<FieldTableModel> sorter = new TableRowSorter<>(fieldTableModel);
+        fieldTable.setRowSorter(sorter);
+
+        SearchTextField filterField = new SearchTextField(false);
+        filterField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                String text = filterField.getText().trim();
+                sorter.setRowFilter(text.isEmpty() ? null : RowFilter.regexFilter("(?i)" + Pattern.quote(text),
+                        FieldTableModel.FIELD_COLUMN, FieldTableModel.COLUMN_COLUMN));
             }
-            ComboBox<String> operationComboBox = new ComboBox<>(operations);
-            operationComboBox.addActionListener(e -> {
-                fieldOperation.put(field.getName(), (String) operationComboBox.getSelectedItem());
-                updateCode();
-            });
+        });
+        JLabel filterLabel = new JLabel("Filter:");
+        gbc.gridx = 0;
+        gbc.gridy = 4;
+        leftPanel.add(filterLabel, gbc);
+        gbc.gridx = 1;
+        gbc.gridy = 4;
+        leftPanel.add(filterField, gbc);
 
-            JLabel fieldNameLabel = new JLabel(field.getName());
-            fieldsGbc.gridx = 0;
-            fieldsPanel.add(operationComboBox, fieldsGbc);
-            fieldsGbc.gridx = 1;
-            fieldsPanel.add(fieldNameLabel, fieldsGbc);
-            fieldsGbc.gridx = 0;
-            fieldsGbc.gridy++;
+        // 批量设置选中行的操作符，不适用于该字段类型的操作符会被跳过
+        Set<String> allOperations = new LinkedHashSet<>();
+        for (FieldKind kind : FieldKind.values()) {
+            if (kind == FieldKind.NESTED) {
+                continue;
+            }
+            for (String dbType : dbTypes) {
+                allOperations.addAll(Arrays.asList(kind.getOperations(dbType)));
+            }
         }
+        ComboBox<String> bulkOperationComboBox = new ComboBox<>(allOperations.toArray(new String[0]));
+        JButton bulkApplyButton = new JButton("Set for Selected");
+        bulkApplyButton.addActionListener(e -> {
+            String operation = (String) bulkOperationComboBox.getSelectedItem();
+            for (int viewRow : fieldTable.getSelectedRows()) {
+                int row = fieldTable.convertRowIndexToModel(viewRow);
+                if (Arrays.asList(fieldTableModel.getField(row).kind().getOperations(getDbType())).contains(operation)) {
+                    fieldTableModel.setValueAt(operation, row, FieldTableModel.OPERATOR_COLUMN);
+                }
+            }
+        });
+        JPanel bulkPanel = new JPanel(new BorderLayout(JBUI.scale(5), 0));
+        bulkPanel.add(bulkOperationComboBox, BorderLayout.CENTER);
+        bulkPanel.add(bulkApplyButton, BorderLayout.EAST);
+        JLabel bulkLabel = new JLabel("Operator:");
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        leftPanel.add(bulkLabel, gbc);
+        gbc.gridx = 1;
+        gbc.gridy = 5;
+        leftPanel.add(bulkPanel, gbc);
+
+        // 输出内容：条件片段或键集分页片段
+        outputModeComboBox = new ComboBox<>(OutputMode.values());
+        outputModeComboBox.addActionListener(e -> {
+            sortKeysField.setEnabled(getOutputMode() == OutputMode.KEYSET);
+            batchSizeSpinner.setEnabled(getOutputMode() == OutputMode.BATCH_INSERT || getOutputMode() == OutputMode.BATCH_UPSERT);
+            setHighlighter(getOutputMode());
+            fragment = null;
+            updateCode();
+        });
+        JLabel outputModeLabel = new JLabel("Output:");
+        gbc.gridx = 0;
+        gbc.gridy = 6;
+        leftPanel.add(outputModeLabel, gbc);
+        gbc.gridx = 1;
+        gbc.gridy = 6;
+        leftPanel.add(outputModeComboBox, gbc);
+
+        sortKeysField = new JTextField();
+        sortKeysField.setToolTipText("Sort fields or columns, e.g. createTime desc, id");
+        sortKeysField.setEnabled(false);
+        sortKeysField.getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                updateCode();
+            }
+        });
+        JLabel sortKeysLabel = new JLabel("Sort By:");
+        gbc.gridx = 0;
+        gbc.gridy = 7;
+        leftPanel.add(sortKeysLabel, gbc);
+        gbc.gridx = 1;
+        gbc.gridy = 7;
+        leftPanel.add(sortKeysField, gbc);
+
+        // 批量插入每条语句的行数，上限由绑定参数个数决定
+        batchSizeSpinner = new JBIntSpinner(BatchInsertGen.DEFAULT_BATCH_SIZE, 1, BatchInsertGen.MAX_BIND_PARAMETERS);
+        batchSizeSpinner.setEnabled(false);
+        batchSizeSpinner.addChangeListener(e -> updateCode());
+        JLabel batchSizeLabel = new JLabel("Rows per Batch:");
+        gbc.gridx = 0;
+        gbc.gridy = 8;
+        leftPanel.add(batchSizeLabel, gbc);
+        gbc.gridx = 1;
+        gbc.gridy = 8;
+        leftPanel.add(batchSizeSpinner, gbc);
 
-        JBScrollPane fieldsScrollPane = new JBScrollPane(fieldsPanel);
+        JBScrollPane fieldsScrollPane = new JBScrollPane(fieldTable);
         gbc.gridx = 0;
-        gbc.gridy = 4;
+        gbc.gridy = 9;
         gbc.gridwidth = 2;
         gbc.fill = GridBagConstraints.BOTH;
         gbc.weightx = 1.0;
         gbc.weighty = 1.0;
         leftPanel.add(fieldsScrollPane, gbc);
 
-        // Right Panel
+        indexStatusLabel = new JBLabel();
+        gbc.gridy = 10;
+        gbc.weighty = 0;
+        leftPanel.add(indexStatusLabel, gbc);
+
+        existingFragmentsLabel = new JBLabel();
+        gbc.gridy = 11;
+        leftPanel.add(existingFragmentsLabel, gbc);
+
+        // Right Panel，只读 XML 编辑器，语法高亮只作用于可见区域
+        codeDocument = EditorFactory.getInstance().createDocument("");
+        codeEditor = EditorFactory.getInstance().createViewer(codeDocument, project, EditorKind.PREVIEW);
+        setHighlighter(OutputMode.CONDITIONS);
+        codeEditor.getSettings().setLineNumbersShown(true);
+        codeEditor.getSettings().setFoldingOutlineShown(false);
         JPanel rightPanel = new JPanel(new BorderLayout());
-        codeArea = new JTextArea();
-        codeArea.setEditable(false);
-        rightPanel.add(new JScrollPane(codeArea), BorderLayout.CENTER);
+        rightPanel.add(codeEditor.getComponent(), BorderLayout.CENTER);
 
         // Split Panel
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftPanel, rightPanel);
-        splitPane.setDividerLocation(300);
+        splitPane.setDividerLocation(400);
         panel.add(splitPane, BorderLayout.CENTER);
 
         // Add listeners
-        tableAliasField.addActionListener(e -> updateCode());
-        paramPrefixField.addActionListener(e -> updateCode());
+        tableAliasField.addActionListener(e -> applyEdits(fragment -> fragment.setTableAlias(tableAliasField.getText())));
+        paramPrefixField.addActionListener(e -> applyEdits(fragment -> fragment.setParamPrefix(paramPrefixField.getText())));
 
-        // 设置默认值
-        String savedDbType = MybatisConditionSettings.getInstance(project).getDbType();
-        if (savedDbType != null) {
-            dbTypeComboBox.setSelectedItem(savedDbType);
-        }
+        // 首次生成与之后的修改一样在后台进行
         updateCode();
+        loadSchema();
+        loadExistingFragments();
         return panel;
     }
 
@@ -203,9 +343,17 @@ public class MybatisSqlGenDialog extends DialogWrapper {
         copyCodeToClipboard();
     }
 
+    @Override
+    protected void dispose() {
+        if (codeEditor != null) {
+            EditorFactory.getInstance().releaseEditor(codeEditor);
+        }
+        super.dispose();
+    }
+
     private void copyCodeToClipboard() {
-        String code = codeArea.getText();
-        if (code != null && !code.isEmpty()) {
+        String code = codeDocument.getText();
+        if (!code.isEmpty()) {
             // 使用 Toolkit 获取系统剪贴板
             Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
             // 创建一个新的字符串选择对象
@@ -215,19 +363,367 @@ public class MybatisSqlGenDialog extends DialogWrapper {
         }
     }
 
+    private void setCode(String code) {
+        WriteAction.run(() -> codeDocument.setText(code));
+    }
+
+    /**
+     * 已有生成结果时只替换受影响的分段，否则（仍在后台生成中）重新提交完整生成。
+     */
+    private void applyEdits(Function<ConditionFragment, List<ConditionFragment.Edit>> change) {
+        if (fragment == null || (pendingUpdate != null && !pendingUpdate.isDone()) || getOutputMode() != OutputMode.CONDITIONS) {
+            updateCode();
+            return;
+        }
+        List<ConditionFragment.Edit> edits = change.apply(fragment);
+        if (!edits.isEmpty()) {
+            WriteAction.run(() -> {
+                for (ConditionFragment.Edit edit : edits) {
+                    codeDocument.replaceString(edit.start(), edit.end(), edit.text());
+                }
+            });
+        }
+    }
+
+    private String getDbType() {
+        return (String) dbTypeComboBox.getSelectedItem();
+    }
+
+    private OutputMode getOutputMode() {
+        return (OutputMode) outputModeComboBox.getSelectedItem();
+    }
+
     private void updateCode() {
-        String dbType = (String) dbTypeComboBox.getSelectedItem();
+        if (getOutputMode() != OutputMode.CONDITIONS) {
+            renderOutput();
+            return;
+        }
+        String dbType = getDbType();
         String tableAlias = tableAliasField.getText();
         String paramPrefix = paramPrefixField.getText();
-        String generatedCode = MybatisSqlGen.generateMyBatisConditions(psiClass, tableAlias, paramPrefix, fieldOperation, dbType);
-        codeArea.setText(generatedCode);
+        Map<String, String> operations = new HashMap<>(fieldOperation);
+        // 只保留最新一次请求，旧的生成任务直接取消
+        if (pendingUpdate != null) {
+            pendingUpdate.cancel();
+        }
+        ConditionModel current = renderModel;
+        pendingUpdate = ReadAction.nonBlocking(() -> createFragment(current, tableAlias, paramPrefix, operations, dbType))
+                .coalesceBy(this)
+                .expireWith(getDisposable())
+                .finishOnUiThread(ModalityState.stateForComponent(getContentPanel()), result -> {
+                    if (getOutputMode() != OutputMode.CONDITIONS) {
+                        return;
+                    }
+                    fragment = result;
+                    setCode(result.getText());
+                })
+                .submit(service.getExecutor());
+    }
+
+    private ConditionFragment createFragment(ConditionModel source, String tableAlias, String paramPrefix, Map<String, String> operations, String dbType) {
+        try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.GENERATE, source.getQualifiedName())) {
+            return source.createFragment(tableAlias, paramPrefix, operations, dbType, templates);
+        }
+    }
+
+    /**
+     * 条件片段以外的输出都很小，直接在 EDT 上整段生成。
+     */
+    private void renderOutput() {
+        if (pendingUpdate != null) {
+            pendingUpdate.cancel();
+        }
+        fragment = null;
+        try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.GENERATE, getOutputMode().name())) {
+            String code = switch (getOutputMode()) {
+                case KEYSET -> KeysetPaginationGen.generate(
+                        KeysetPaginationGen.withTieBreaker(KeysetPaginationGen.parseSortKeys(sortKeysField.getText(), model.getFields()), model.getFields(), table),
+                        tableAliasField.getText(), paramPrefixField.getText(), getDbType());
+                case SQL_PROVIDER -> SqlProviderGen.generate(model.getQualifiedName(), currentFields(renderModel),
+                        table != null ? table.getName() : guessTableName(), tableAliasField.getText(), paramPrefixField.getText(), getDbType());
+                case BATCH_INSERT, BATCH_UPSERT -> BatchInsertGen.generate(model.getFields(), table != null ? table.getName() : guessTableName(),
+                        getKeyColumns(), getOutputMode() == OutputMode.BATCH_UPSERT, batchSizeSpinner.getNumber(), getDbType());
+                case RESULT_MAP -> ResultMapGen.generate(model.getQualifiedName(), model.getFields(), table, tableAliasField.getText(),
+                        service.getSettings().getNamingStrategy());
+                case EXISTING -> existingFragments;
+                default -> "";
+            };
+            setErrorText(null);
+            setCode(code);
+        } catch (IllegalArgumentException e) {
+            setErrorText(e.getMessage(), sortKeysField);
+        }
     }
 
+    /**
+     * 带上当前选择的操作符的字段。
+     */
+    private List<ConditionField> currentFields(ConditionModel source) {
+        List<ConditionField> fields = new ArrayList<>(source.getFields().size());
+        for (ConditionField field : source.getFields()) {
+            fields.add(field.withOperator(fieldOperation.get(field.name())));
+        }
+        return fields;
+    }
+
+    /**
+     * upsert 的冲突键：所选表的主键，没有表结构时使用 id 列。
+     */
+    private List<String> getKeyColumns() {
+        if (table != null) {
+            for (TableSchema.Index index : table.getIndexes()) {
+                if (TableSchema.Index.PRIMARY.equals(index.name())) {
+                    return index.columns();
+                }
+            }
+        }
+        return List.of("id");
+    }
+
+    private String guessTableName() {
+        String qualifiedName = model.getQualifiedName();
+        return StrUtil.toUnderlineCase(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+    }
+
+    private void setHighlighter(OutputMode mode) {
+        ((EditorEx) codeEditor).setHighlighter(EditorHighlighterFactory.getInstance()
+                .createEditorHighlighter(project, FileTypeManager.getInstance().getFileTypeByExtension(mode.getExtension())));
+    }
+
+    /**
+     * 后台解析设置中的 DDL，完成后按参数类名预选对应的表。
+     */
+    private void loadSchema() {
+        ReadAction.nonBlocking(service::getSchema)
+                .expireWith(getDisposable())
+                .finishOnUiThread(ModalityState.stateForComponent(getContentPanel()), loaded -> {
+                    schema = loaded;
+                    if (loaded.isEmpty()) {
+                        tableComboBox.setToolTipText("Configure DDL files in Settings | Tools | Mybatis Condition");
+                        return;
+                    }
+                    List<String> tableNames = new ArrayList<>();
+                    tableNames.add("");
+                    tableNames.addAll(new TreeSet<>(loaded.getTableNames()));
+                    tableComboBox.setModel(new DefaultComboBoxModel<>(tableNames.toArray(new String[0])));
+                    tableComboBox.setEnabled(true);
+                    String qualifiedName = model.getQualifiedName();
+                    TableSchema guessed = StrUtil.isBlank(qualifiedName) ? null
+                            : loaded.guessTable(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+                    // 触发 ActionListener，重新检查索引
+                    tableComboBox.setSelectedItem(guessed == null ? "" : guessed.getName());
+                })
+                .submit(service.getExecutor());
+    }
+
+    /**
+     * 后台从片段索引中查找已有 Mapper XML 里与参数类相关的片段，找到时提示可以直接 &lt;include&gt;。
+     */
+    private void loadExistingFragments() {
+        ReadAction.nonBlocking(() -> renderExistingFragments(service.findExistingFragments(model)))
+                .inSmartMode(project)
+                .expireWith(getDisposable())
+                .finishOnUiThread(ModalityState.stateForComponent(getContentPanel()), result -> {
+                    if (result.count() == 0) {
+                        return;
+                    }
+                    existingFragments = result.text();
+                    existingFragmentsLabel.setText(result.count() + " existing fragment(s) in mapper XML, see Output: " + OutputMode.EXISTING);
+                    if (getOutputMode() == OutputMode.EXISTING) {
+                        renderOutput();
+                    }
+                })
+                .submit(service.getExecutor());
+    }
+
+    private ExistingFragments renderExistingFragments(List<MapperFragmentIndex.Match> matches) {
+        StringBuilder text = new StringBuilder();
+        int count = 0;
+        for (MapperFragmentIndex.Match match : matches) {
+            Document document = FileDocumentManager.getInstance().getDocument(match.file());
+            MapperFragmentIndex.Entry entry = match.entry();
+            int end = entry.offset() + entry.length();
+            // 索引与文档不同步时跳过
+            if (document == null || end > document.getTextLength()) {
+                continue;
+            }
+            count++;
+            text.append("<!-- ").append(match.file().getName()).append(':').append(document.getLineNumber(entry.offset()) + 1)
+                    .append(", references ").append(match.coveredFields()).append(" of ").append(model.getFields().size()).append(" fields -->\n");
+            if ("sql".equals(entry.tag())) {
+                text.append("<include refid=\"").append(entry.getRefId()).append("\"/>\n\n");
+            }
+            text.append(document.getText().substring(entry.offset(), end)).append("\n\n");
+        }
+        return new ExistingFragments(count, text.toString());
+    }
+
+    /**
+     * 对照所选表检查每个字段能否用上索引，条件顺序发生变化时重新生成。
+     */
+    private void refreshIndexAdvice() {
+        ConditionModel ordered = model;
+        if (table == null) {
+            indexHints = Map.of();
+            indexStatusLabel.setText("");
+        } else {
+            IndexAdvisor.Result result = IndexAdvisor.analyze(currentFields(model), table);
+            indexHints = result.hints();
+            ordered = model.reorder(result.orderedFields());
+            long unknown = result.count(IndexAdvisor.Status.UNKNOWN_COLUMN);
+            long unindexed = result.hints().size() - unknown - result.count(IndexAdvisor.Status.INDEXED);
+            indexStatusLabel.setText(unknown == 0 && unindexed == 0 ? "All conditions can use an index of " + table.getName()
+                    : unknown + " unknown column(s), " + unindexed + " condition(s) without a usable index in " + table.getName());
+        }
+        if (ordered != renderModel) {
+            renderModel = ordered;
+            fieldTableModel.setFields(ordered.getFields());
+            updateCode();
+        } else {
+            fieldTableModel.fireTableRowsUpdated(0, fieldTableModel.getRowCount() - 1);
+        }
+    }
+
+    /**
+     * 缓存未命中时构建模型需要完整解析字段类型和嵌套类型，在后台的非阻塞读操作中进行，完成后在 EDT 上打开对话框。
+     */
     public static void showDialog(Project project, PsiClass psiClass) {
-        MybatisSqlGenDialog dialog = new MybatisSqlGenDialog(project, psiClass);
+        MybatisConditionService service = MybatisConditionService.getInstance(project);
+        ReadAction.nonBlocking(() -> psiClass.isValid() ? service.getModel(psiClass) : null)
+                .inSmartMode(project)
+                .expireWith(service)
+                .finishOnUiThread(ModalityState.defaultModalityState(), model -> {
+                    if (model != null) {
+                        showDialog(project, model);
+                    }
+                })
+                .submit(service.getExecutor());
+    }
+
+    public static void showDialog(Project project, ConditionModel model) {
+        MybatisSqlGenDialog dialog;
+        // 构造只创建界面，不访问 PSI，首次生成也在后台
+        try (GenerationStats.Timer ignored = GenerationStats.getInstance().start(GenerationStats.Phase.DIALOG_INIT, model.getQualifiedName())) {
+            dialog = new MybatisSqlGenDialog(project, model);
+        }
         dialog.show();
+    }
 
+    private class FieldTableModel extends AbstractTableModel {
+        static final int FIELD_COLUMN = 0;
+        static final int COLUMN_COLUMN = 1;
+        static final int OPERATOR_COLUMN = 2;
+        static final int INDEX_COLUMN = 3;
+        private final String[] columnNames = {"Field", "Column", "Operator", "Index"};
+        private List<ConditionField> fields = model.getFields();
+
+        void setFields(List<ConditionField> fields) {
+            this.fields = fields;
+            fireTableDataChanged();
+        }
 
+        ConditionField getField(int row) {
+            return fields.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return fields.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public boolean isCellEditable(int rowIndex, int columnIndex) {
+            return columnIndex == OPERATOR_COLUMN;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ConditionField field = fields.get(rowIndex);
+            return switch (columnIndex) {
+                case FIELD_COLUMN -> field.name();
+                case COLUMN_COLUMN -> field.column();
+                case OPERATOR_COLUMN -> fieldOperation.get(field.name());
+                default -> Objects.toString(indexHints.get(field.name()), "");
+            };
+        }
+
+        @Override
+        public void setValueAt(Object value, int rowIndex, int columnIndex) {
+            setOperation(fields.get(rowIndex).name(), (String) value);
+        }
+
+        void setOperation(String fieldName, String operation) {
+            if (operation == null || operation.equals(fieldOperation.get(fieldName))) {
+                return;
+            }
+            fieldOperation.put(fieldName, operation);
+            fireTableRowsUpdated(0, fields.size() - 1);
+            applyEdits(fragment -> fragment.setOperation(fieldName, operation));
+            if (table != null) {
+                refreshIndexAdvice();
+            }
+        }
+    }
+
+    private record ExistingFragments(int count, String text) {
+    }
+
+    private enum OutputMode {
+        CONDITIONS("Where conditions", "xml"),
+        KEYSET("Keyset pagination", "xml"),
+        SQL_PROVIDER("SqlProvider class", "java"),
+        BATCH_INSERT("Batch insert", "xml"),
+        BATCH_UPSERT("Batch upsert", "xml"),
+        RESULT_MAP("Column list and resultMap", "xml"),
+        EXISTING("Existing fragments", "xml");
+
+        private final String text;
+        private final String extension;
+
+        OutputMode(String text, String extension) {
+            this.text = text;
+            this.extension = extension;
+        }
+
+        String getExtension() {
+            return extension;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * 每次开始编辑时按所在行的字段类型重新填充可选操作符。
+     */
+    private class OperatorCellEditor extends DefaultCellEditor {
+        private final JTable table;
+        private final ComboBox<String> comboBox;
+
+        OperatorCellEditor(JTable table, ComboBox<String> comboBox) {
+            super(comboBox);
+            this.table = table;
+            this.comboBox = comboBox;
+        }
+
+        @Override
+        public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+            ConditionField field = fieldTableModel.getField(this.table.convertRowIndexToModel(row));
+            comboBox.setModel(new DefaultComboBoxModel<>(field.kind().getOperations(getDbType())));
+            return super.getTableCellEditorComponent(table, value, isSelected, row, column);
+        }
     }
 
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 展开嵌套的查询对象字段。从根类开始深度优先，超过最大层数或回到当前路径上的类型（循环引用）时丢弃该字段。
+ * 每个嵌套类型只展开一次，生成为一个 &lt;sql&gt; 片段，之后的引用都 include 同一个片段，
+ * 因此类型的展开层数以第一次遇到它的位置为准。
+ * <p>
+ * 输入是各个类自身的字段模型，其中嵌套对象字段的 type 为类的全限定名、column 尚未确定。
+ */
+public final class NestedModelResolver {
+
+    public static final String SQL_ID_SUFFIX = "NestedCondition";
+
+    private final int maxDepth;
+    // 按全限定名查找类自身的字段模型，找不到时返回 null
+    private final Function<String, ConditionModel> classModels;
+    // 已展开的类型到 <sql> id，展开后没有字段或找不到类的类型为 null
+    private final Map<String, String> sqlIds = new HashMap<>();
+    private final Set<String> usedSqlIds = new HashSet<>();
+    private final Map<String, ConditionModel> nestedModels = new LinkedHashMap<>();
+    // 当前展开路径上的类型，用于发现循环引用
+    private final Set<String> path = new HashSet<>();
+
+    public NestedModelResolver(int maxDepth, Function<String, ConditionModel> classModels) {
+        this.maxDepth = maxDepth;
+        this.classModels = classModels;
+    }
+
+    public ConditionModel resolve(ConditionModel classModel) {
+        List<ConditionField> fields = resolveFields(classModel, 0);
+        return new ConditionModel(classModel.getQualifiedName(), fields, nestedModels);
+    }
+
+    private List<ConditionField> resolveFields(ConditionModel classModel, int depth) {
+        path.add(classModel.getQualifiedName());
+        List<ConditionField> fields = new ArrayList<>(classModel.getFields().size());
+        for (ConditionField field : classModel.getFields()) {
+            if (field.kind() != FieldKind.NESTED) {
+                fields.add(field);
+                continue;
+            }
+            String sqlId = depth < maxDepth && !path.contains(field.type()) ? resolveNested(field.type(), depth + 1) : null;
+            if (sqlId != null) {
+                fields.add(new ConditionField(field.name(), sqlId, FieldKind.NESTED, field.type(), null, field.operator()));
+            }
+        }
+        path.remove(classModel.getQualifiedName());
+        return fields;
+    }
+
+    private String resolveNested(String type, int depth) {
+        if (sqlIds.containsKey(type)) {
+            return sqlIds.get(type);
+        }
+        ConditionModel classModel = classModels.apply(type);
+        List<ConditionField> fields = classModel == null ? List.of() : resolveFields(classModel, depth);
+        String sqlId = fields.isEmpty() ? null : uniqueSqlId(type.substring(type.lastIndexOf('.') + 1));
+        sqlIds.put(type, sqlId);
+        if (sqlId != null) {
+            nestedModels.put(sqlId, new ConditionModel(type, fields));
+        }
+        return sqlId;
+    }
+
+    private String uniqueSqlId(String simpleName) {
+        String base = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1) + SQL_ID_SUFFIX;
+        String sqlId = base;
+        for (int i = 2; !usedSqlIds.add(sqlId); i++) {
+            sqlId = base + i;
+        }
+        return sqlId;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 识别成对的起止字段：createTimeStart / createTimeEnd、minPrice / maxPrice、fromDate / toDate 等。
+ * 只有两个字段同时存在时才算一对，生成 col &gt;= #{start} 和 col &lt; #{end} 两个独立条件。
+ */
+public final class RangeFields {
+
+    // 后缀形式：xxxStart / xxxEnd
+    private static final String[][] SUFFIXES = {{"Start", "End"}, {"Begin", "End"}, {"From", "To"}, {"Min", "Max"}, {"Lower", "Upper"}};
+    // 前缀形式：startXxx / endXxx
+    private static final String[][] PREFIXES = {{"start", "end"}, {"begin", "end"}, {"from", "to"}, {"min", "max"}};
+
+    /**
+     * @param baseName 去掉前后缀后的字段名，用于推导列名
+     * @param start    是否为下界
+     */
+    public record Bound(String baseName, boolean start) {
+    }
+
+    private RangeFields() {
+    }
+
+    /**
+     * 在候选字段名中查找成对的起止字段，返回字段名到边界的映射，未配对的字段不在结果中。
+     */
+    public static Map<String, Bound> pair(Collection<String> names) {
+        Set<String> candidates = new HashSet<>(names);
+        Map<String, Bound> result = new HashMap<>();
+        for (String name : names) {
+            if (result.containsKey(name)) {
+                continue;
+            }
+            for (String[] suffix : SUFFIXES) {
+                if (name.length() > suffix[0].length() && name.endsWith(suffix[0])) {
+                    String base = name.substring(0, name.length() - suffix[0].length());
+                    if (put(result, candidates, name, base + suffix[1], base)) {
+                        break;
+                    }
+                }
+            }
+            for (String[] prefix : PREFIXES) {
+                if (result.containsKey(name)) {
+                    break;
+                }
+                if (name.length() > prefix[0].length() && name.startsWith(prefix[0]) && Character.isUpperCase(name.charAt(prefix[0].length()))) {
+                    String rest = name.substring(prefix[0].length());
+                    String base = Character.toLowerCase(rest.charAt(0)) + rest.substring(1);
+                    put(result, candidates, name, prefix[1] + rest, base);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean put(Map<String, Bound> result, Set<String> candidates, String start, String end, String base) {
+        if (!candidates.contains(end) || result.containsKey(end)) {
+            return false;
+        }
+        result.put(start, new Bound(base, true));
+        result.put(end, new Bound(base, false));
+        return true;
+    }
+}
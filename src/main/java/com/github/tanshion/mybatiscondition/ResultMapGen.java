@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 根据结果类生成显式的列清单 Base_Column_List 和对应的 BaseResultMap，只查询结果类实际映射的列，
+ * 代替 SELECT * 把用不到的宽列也传回来。
+ */
+public final class ResultMapGen {
+
+    public static final String COLUMN_LIST_ID = "Base_Column_List";
+    public static final String RESULT_MAP_ID = "BaseResultMap";
+
+    private ResultMapGen() {
+    }
+
+    /**
+     * @param table          所选表，不为 null 时表中不存在的列不会出现在列清单中
+     * @param namingStrategy 起止字段在结果类中是两个独立的列，按字段名重新推导列名
+     */
+    public static String generate(String qualifiedName, List<ConditionField> fields, TableSchema table, String tableAlias, ColumnNamingStrategy namingStrategy) {
+        Map<String, ConditionField> columns = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (ConditionField field : fields) {
+            String column = switch (field.kind()) {
+                case STRING, BOOLEAN, SCALAR -> field.column();
+                case RANGE_START, RANGE_END -> namingStrategy.apply(field.name());
+                // 集合字段需要 association / collection 映射，不在这里生成
+                default -> null;
+            };
+            if (column == null) {
+                continue;
+            }
+            if (table != null && !table.hasColumn(column)) {
+                missing.add(field.name());
+            } else {
+                columns.putIfAbsent(column, field);
+            }
+        }
+        List<String> keyColumns = getKeyColumns(table);
+        String columnPrefix = StrUtil.isBlank(tableAlias) ? "" : tableAlias + ".";
+
+        StringBuilder sb = new StringBuilder(256 + columns.size() * 80);
+        if (!missing.isEmpty()) {
+            sb.append("<!-- not in ").append(table.getName()).append(": ").append(String.join(", ", missing)).append(" -->\n");
+        }
+        sb.append("<sql id=\"").append(COLUMN_LIST_ID).append("\">\n    ");
+        int lineLength = 0;
+        int i = 0;
+        for (String column : columns.keySet()) {
+            String item = columnPrefix + column + (++i < columns.size() ? ", " : "");
+            // 每行不超过 100 个字符
+            if (lineLength > 0 && lineLength + item.length() > 100) {
+                sb.setLength(sb.length() - 1);
+                sb.append("\n    ");
+                lineLength = 0;
+            }
+            sb.append(item);
+            lineLength += item.length();
+        }
+        sb.append("\n</sql>\n\n");
+
+        sb.append("<resultMap id=\"").append(RESULT_MAP_ID).append("\" type=\"").append(qualifiedName).append("\">\n");
+        for (Map.Entry<String, ConditionField> entry : columns.entrySet()) {
+            String column = entry.getKey();
+            sb.append("    <").append(keyColumns.contains(TableSchema.normalize(column)) ? "id" : "result")
+                    .append(" column=\"").append(column).append("\" property=\"").append(entry.getValue().name()).append("\"/>\n");
+        }
+        sb.append("</resultMap>\n");
+        return sb.toString();
+    }
+
+    private static List<String> getKeyColumns(TableSchema table) {
+        if (table != null) {
+            for (TableSchema.Index index : table.getIndexes()) {
+                if (TableSchema.Index.PRIMARY.equals(index.name())) {
+                    return index.columns();
+                }
+            }
+        }
+        return List.of("id");
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.testFramework.LightVirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 打开一个只读文本页显示汇总的耗时统计，同时写入 idea.log，便于附在卡顿报告中。
+ */
+public class ShowGenerationStatsAction extends AnAction {
+
+    private static final Logger LOG = Logger.getInstance(ShowGenerationStatsAction.class);
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) {
+            return;
+        }
+        String stats = GenerationStats.getInstance().dump();
+        LOG.info(stats);
+        LightVirtualFile file = new LightVirtualFile("mybatis-condition-stats.txt", stats);
+        file.setWritable(false);
+        FileEditorManager.getInstance(project).openFile(file, true);
+    }
+}
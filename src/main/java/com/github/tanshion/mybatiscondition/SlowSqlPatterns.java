@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在 Mapper XML 的 SQL 文本中查找用不上索引或破坏语句缓存的写法，能安全改写时给出替换文本。
+ * 与 PSI 无关，按纯文本匹配，偏移量相对于传入的文本。
+ */
+public final class SlowSqlPatterns {
+
+    public enum Kind {
+        LEADING_WILDCARD("LIKE with a leading wildcard cannot use an index"),
+        FUNCTION_ON_COLUMN("Function on column '%s' prevents index use"),
+        INTERPOLATION("${} interpolation creates a new statement for every value and is open to SQL injection");
+
+        private final String message;
+
+        Kind(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * @param replacement 等价或更快写法的替换文本，无法自动改写时为 null
+     */
+    public record Match(Kind kind, int start, int end, String message, String replacement) {
+    }
+
+    private static final String BIND = "(#\\{[^}]+})";
+
+    // 依次为 Oracle 的嵌套 CONCAT、MySQL 的 CONCAT 和 || 拼接；只有前后都是 % 时才改写为前缀匹配
+    private static final Pattern[] LEADING_WILDCARDS = {
+            Pattern.compile("LIKE\\s+CONCAT\\s*\\(\\s*'%'\\s*,\\s*CONCAT\\s*\\(\\s*" + BIND + "\\s*,\\s*'%'\\s*\\)\\s*\\)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("LIKE\\s+CONCAT\\s*\\(\\s*'%'\\s*,\\s*" + BIND + "\\s*(,\\s*'%'\\s*)?\\)", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("LIKE\\s+'%'\\s*\\|\\|\\s*" + BIND + "(\\s*\\|\\|\\s*'%')?", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("LIKE\\s+'%[^']*'", Pattern.CASE_INSENSITIVE),
+    };
+
+    private static final Pattern FUNCTION_ON_COLUMN = Pattern.compile(
+            "\\b(DATE|YEAR|MONTH|DAY|DATE_FORMAT|LOWER|UPPER|TRIM|LTRIM|RTRIM|SUBSTR|SUBSTRING|LEFT|TO_CHAR|TRUNC|CAST|CONVERT|IFNULL|NVL|COALESCE)"
+                    + "\\s*\\(\\s*([A-Za-z_]\\w*(?:\\.[A-Za-z_]\\w*)?)\\s*((?:,|\\bAS\\b)[^()]*)?\\)\\s*(" + comparisonOperators() + ")(\\s*" + BIND + ")?",
+            Pattern.CASE_INSENSITIVE);
+
+    // #{${prefix}.name} 是 <include> 传入的属性，替换后仍是预编译参数
+    private static final Pattern INTERPOLATION = Pattern.compile("(?<!#\\{)\\$\\{([^}]+)}");
+    // 只有比较操作符右侧的 ${} 是值，ORDER BY ${col}、FROM ${table} 等标识符改成 #{} 会变成常量或无效 SQL
+    private static final Pattern VALUE_POSITION = Pattern.compile("(?:=|<>|!=|<|>|&lt;|&gt;)\\s*$");
+    private static final int VALUE_POSITION_LOOKBEHIND = 16;
+    private static final Set<String> INCLUDE_PROPERTIES = Set.of(MybatisSqlGen.PREFIX_PROPERTY, MybatisSqlGen.VAR_PROPERTY, MybatisSqlGen.ALIAS_PROPERTY);
+    private static final String IDENTIFIER_MESSAGE = "${} interpolation is open to SQL injection: bind values with #{}, and only interpolate whitelisted identifiers such as column or table names";
+
+    private SlowSqlPatterns() {
+    }
+
+    public static List<Match> find(CharSequence text, String dbType) {
+        List<Match> matches = new ArrayList<>();
+        findLeadingWildcards(text, matches);
+        findFunctionsOnColumns(text, dbType, matches);
+        Matcher matcher = INTERPOLATION.matcher(text);
+        while (matcher.find()) {
+            // 生成的嵌套片段中的 include 属性，解析 Mapper 时就已替换
+            if (INCLUDE_PROPERTIES.contains(matcher.group(1).trim())) {
+                continue;
+            }
+            CharSequence before = text.subSequence(Math.max(0, matcher.start() - VALUE_POSITION_LOOKBEHIND), matcher.start());
+            if (VALUE_POSITION.matcher(before).find()) {
+                matches.add(new Match(Kind.INTERPOLATION, matcher.start(), matcher.end(), Kind.INTERPOLATION.getMessage(), "#{" + matcher.group(1).trim() + "}"));
+            } else {
+                matches.add(new Match(Kind.INTERPOLATION, matcher.start(), matcher.end(), IDENTIFIER_MESSAGE, null));
+            }
+        }
+        return matches;
+    }
+
+    private static void findLeadingWildcards(CharSequence text, List<Match> matches) {
+        List<int[]> found = new ArrayList<>();
+        for (int i = 0; i < LEADING_WILDCARDS.length; i++) {
+            Matcher matcher = LEADING_WILDCARDS[i].matcher(text);
+            while (matcher.find()) {
+                int start = matcher.start();
+                if (found.stream().anyMatch(range -> start >= range[0] && start < range[1])) {
+                    continue;
+                }
+                found.add(new int[]{start, matcher.end()});
+                String replacement = switch (i) {
+                    case 0 -> "LIKE CONCAT(" + matcher.group(1) + ", '%')";
+                    case 1 -> matcher.group(2) == null ? null : "LIKE CONCAT(" + matcher.group(1) + ", '%')";
+                    case 2 -> matcher.group(2) == null ? null : "LIKE " + matcher.group(1) + " || '%'";
+                    default -> null;
+                };
+                matches.add(new Match(Kind.LEADING_WILDCARD, start, matcher.end(), Kind.LEADING_WILDCARD.getMessage(), replacement));
+            }
+        }
+    }
+
+    private static void findFunctionsOnColumns(CharSequence text, String dbType, List<Match> matches) {
+        Matcher matcher = FUNCTION_ON_COLUMN.matcher(text);
+        while (matcher.find()) {
+            String function = matcher.group(1);
+            String column = matcher.group(2);
+            String operator = matcher.group(4);
+            String bind = matcher.group(6);
+            String replacement = null;
+            int end = matcher.end(4);
+            // DATE(col) = #{d} / TRUNC(col) = #{d} 改写为半开区间 col >= 当天 AND col < 下一天，参数可能带时间部分，两个边界都先截断到日期
+            boolean dayFunction = function.equalsIgnoreCase(MybatisSqlGen.ORACLE.equals(dbType) ? "TRUNC" : "DATE");
+            if (dayFunction && matcher.group(3) == null && "=".equals(operator) && bind != null) {
+                String day = switch (dbType == null ? "" : dbType) {
+                    case MybatisSqlGen.ORACLE -> "TRUNC(" + bind + ")";
+                    case MybatisSqlGen.POSTGRESQL -> "CAST(" + bind + " AS DATE)";
+                    default -> "DATE(" + bind + ")";
+                };
+                String nextDay = MybatisSqlGen.ORACLE.equals(dbType) || MybatisSqlGen.POSTGRESQL.equals(dbType) ? day + " + 1" : day + " + INTERVAL 1 DAY";
+                // CDATA 中的文本不做实体转义
+                boolean cdata = isInCdata(text, matcher.start());
+                replacement = column + (cdata ? " >= " : " &gt;= ") + day + " AND " + column + (cdata ? " < " : " &lt; ") + nextDay;
+                end = matcher.end(6);
+            }
+            matches.add(new Match(Kind.FUNCTION_ON_COLUMN, matcher.start(), end,
+                    String.format(Kind.FUNCTION_ON_COLUMN.getMessage(), column), replacement));
+        }
+    }
+
+    private static boolean isInCdata(CharSequence text, int offset) {
+        String before = text.subSequence(0, offset).toString();
+        return before.lastIndexOf("<![CDATA[") > before.lastIndexOf("]]>");
+    }
+
+    /**
+     * 由 {@link MybatisSqlGen#operationMap} 中的 SQL 操作符组成的正则，长的在前，同时匹配转义和未转义（CDATA 中）的写法。
+     */
+    private static String comparisonOperators() {
+        Set<String> operators = new LinkedHashSet<>();
+        for (String operator : MybatisSqlGen.operationMap.values()) {
+            operators.add(operator);
+            operators.add(operator.replace("&gt;", ">").replace("&lt;", "<"));
+        }
+        List<String> sorted = new ArrayList<>(operators);
+        sorted.sort(Comparator.comparingInt(String::length).reversed());
+        StringBuilder regex = new StringBuilder();
+        for (String operator : sorted) {
+            if (!regex.isEmpty()) {
+                regex.append('|');
+            }
+            // 以字母结尾的操作符要求是完整单词
+            regex.append(Pattern.quote(operator)).append(Character.isLetter(operator.charAt(operator.length() - 1)) ? "\\b" : "");
+        }
+        return regex.toString();
+    }
+}
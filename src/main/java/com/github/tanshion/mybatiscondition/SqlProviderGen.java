@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 生成 @SelectProvider 使用的 Java 类，条件判断是普通的 Java 空值检查和 StringBuilder 拼接，
+ * 不再由 MyBatis 在每次执行时通过 OGNL 解释 &lt;if&gt; 表达式。参数仍以 #{} 绑定，语义与 XML 模板一致。
+ * <p>
+ * 集合按下标绑定 #{param.ids[0]}，MyBatis 只对 List 和数组支持下标，其他集合（Set 等）的条件不生成，只输出说明注释。
+ * LIKE 的转义在 SQL 中用 REPLACE 完成。
+ */
+public final class SqlProviderGen {
+
+    private static final Set<String> PRIMITIVE_TYPES = Set.of("boolean", "int", "long", "short", "byte", "double", "float", "char");
+    private static final String INDENT = "        ";
+    private static final Pattern JAVA_LANG = Pattern.compile("\\bjava\\.lang\\.(?=[A-Z])");
+
+    private SqlProviderGen() {
+    }
+
+    /**
+     * @param fields 已带上当前操作符的字段
+     */
+    public static String generate(String qualifiedName, List<ConditionField> fields, String tableName, String tableAlias, String paramPrefix, String dbType) {
+        int dot = qualifiedName.lastIndexOf('.');
+        String packageName = dot < 0 ? "" : qualifiedName.substring(0, dot);
+        String simpleName = qualifiedName.substring(dot + 1);
+        String paramPath = StrUtil.isBlank(paramPrefix) ? "" : paramPrefix + ".";
+        String columnPrefix = StrUtil.isBlank(tableAlias) ? "" : tableAlias + ".";
+
+        StringBuilder sb = new StringBuilder(1024 + fields.size() * 256);
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        if (!paramPath.isEmpty()) {
+            sb.append("import org.apache.ibatis.annotations.Param;\n\n");
+        }
+        sb.append("/**\n")
+                .append(" * Generated by MybatisCondition from ").append(simpleName).append(".\n")
+                .append(" * <p>\n")
+                .append(" * {@code @SelectProvider(type = ").append(simpleName).append("SqlProvider.class, method = \"select\")}\n")
+                .append(" */\n")
+                .append("public class ").append(simpleName).append("SqlProvider {\n\n");
+
+        String parameter = (paramPath.isEmpty() ? "" : "@Param(\"" + paramPrefix + "\") ") + simpleName + " param";
+        sb.append("    public static String select(").append(parameter).append(") {\n")
+                .append(INDENT).append("return \"SELECT * FROM ").append(escape(tableName))
+                .append(StrUtil.isBlank(tableAlias) ? "" : " " + tableAlias).append("\" + where(param);\n")
+                .append("    }\n\n");
+
+        sb.append("    public static String where(").append(parameter).append(") {\n")
+                .append(INDENT).append("StringBuilder sql = new StringBuilder(").append(64 + fields.size() * 48).append(");\n");
+        // 方法中的局部变量名：sql、param 和各字段的值，循环变量等生成的局部变量也要避开
+        Set<String> locals = new HashSet<>(Set.of("sql", "param"));
+        for (ConditionField field : fields) {
+            appendField(sb, field, uniqueName(field.name(), locals), locals, paramPath, columnPrefix, dbType);
+        }
+        sb.append(INDENT).append("// drop the leading \" AND\"\n")
+                .append(INDENT).append("return sql.length() == 0 ? \"\" : \" WHERE\" + sql.substring(4);\n")
+                .append("    }\n")
+                .append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendField(StringBuilder sb, ConditionField field, String variable, Set<String> locals, String paramPath, String columnPrefix,
+                                    String dbType) {
+        String operator = StrUtil.isBlank(field.operator()) ? MybatisSqlGen.EQ : field.operator();
+        String templateId = MybatisSqlGen.getTemplateId(field.kind(), operator);
+        if (templateId == null) {
+            return;
+        }
+        // 与 XML 相同：该数据库不支持的 IN 形式退回普通 IN。
+        // 数组绑定需要先把集合转成数组，Provider 无法增加绑定变量，也退回普通 IN
+        if (TemplateRegistry.IN_CHUNKED.equals(templateId) && !MybatisSqlGen.ORACLE.equals(dbType)
+                || TemplateRegistry.IN_ARRAY.equals(templateId)) {
+            templateId = TemplateRegistry.IN;
+            operator = MybatisSqlGen.NOT_IN_ARRAY.equals(operator) ? MybatisSqlGen.NOT_IN : MybatisSqlGen.IN;
+        }
+        String name = field.name();
+        // java.lang 下的类型不需要全限定名
+        String type = field.type() == null ? "Object" : JAVA_LANG.matcher(field.type()).replaceAll("");
+        String getter = ("boolean".equals(type) ? "is" : "get") + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String column = escape(columnPrefix + field.column());
+        String bind = "#{" + paramPath + name;
+        String sqlOperator = unescapeXml(MybatisSqlGen.operationMap.getOrDefault(operator, operator));
+
+        boolean byIndex = switch (templateId) {
+            case TemplateRegistry.BETWEEN, TemplateRegistry.RANGE, TemplateRegistry.IN, TemplateRegistry.IN_CHUNKED, TemplateRegistry.IN_PADDED -> true;
+            default -> false;
+        };
+        if (byIndex && !isIndexable(field.type())) {
+            sb.append(INDENT).append("// ").append(name).append(": ").append(type).append(" cannot be bound by index (").append(bind)
+                    .append("[0]}), only List and arrays can. Change the field to a List or use the XML condition\n");
+            return;
+        }
+        if (PRIMITIVE_TYPES.contains(type)) {
+            // 基本类型没有空值，与 XML 中恒为真的判断一致
+            sb.append(INDENT).append("sql.append(\" AND ").append(column).append(' ').append(sqlOperator).append(' ').append(bind).append("}\");\n");
+            return;
+        }
+        sb.append(INDENT).append(type).append(' ').append(variable).append(" = param.").append(getter).append("();\n");
+        String body = INDENT + "    ";
+        switch (templateId) {
+            case TemplateRegistry.EQ, TemplateRegistry.LIKE, TemplateRegistry.STARTS_WITH, TemplateRegistry.ENDS_WITH, TemplateRegistry.ILIKE -> {
+                sb.append(INDENT).append("if (").append(variable).append(" != null");
+                if (field.kind() == FieldKind.STRING) {
+                    sb.append(" && !").append(variable).append(".isEmpty()");
+                }
+                sb.append(") {\n");
+                if (TemplateRegistry.EQ.equals(templateId)) {
+                    sb.append(body).append("sql.append(\" AND ").append(column).append(" = ").append(bind).append("}\");\n");
+                } else {
+                    appendLike(sb, templateId, column, bind + "}", dbType);
+                }
+            }
+            case TemplateRegistry.BETWEEN, TemplateRegistry.RANGE -> {
+                sb.append(INDENT).append("if (").append(variable).append(" != null && ").append(variable).append(".size() == 2) {\n");
+                if (TemplateRegistry.BETWEEN.equals(templateId)) {
+                    sb.append(body).append("sql.append(\" AND ").append(column).append(' ').append(sqlOperator).append(' ')
+                            .append(bind).append("[0]} AND ").append(bind).append("[1]}\");\n");
+                } else {
+                    sb.append(body).append("sql.append(\" AND ").append(column).append(" >= ").append(bind).append("[0]} AND ")
+                            .append(column).append(" < ").append(bind).append("[1]}\");\n");
+                }
+            }
+            case TemplateRegistry.IN, TemplateRegistry.IN_CHUNKED, TemplateRegistry.IN_PADDED -> {
+                sb.append(INDENT).append("if (").append(variable).append(" != null && !").append(variable).append(".isEmpty()) {\n");
+                appendIn(sb, templateId, variable, new HashSet<>(locals), column, sqlOperator, bind);
+            }
+            case TemplateRegistry.COMPARE -> {
+                sb.append(INDENT).append("if (").append(variable).append(" != null) {\n");
+                sb.append(body).append("sql.append(\" AND ").append(column).append(' ').append(sqlOperator).append(' ').append(bind).append("}\");\n");
+            }
+            default -> {
+                sb.append(INDENT).append("if (").append(variable).append(" != null) {\n");
+                sb.append(body).append("sql.append(\" AND ").append(column).append(" = ").append(bind).append("}\");\n");
+            }
+        }
+        sb.append(INDENT).append("}\n");
+    }
+
+    private static void appendIn(StringBuilder sb, String templateId, String variable, Set<String> locals, String column, String sqlOperator, String bind) {
+        String body = INDENT + "    ";
+        String loop = body + "    ";
+        String i = uniqueName("i", locals);
+        String count = variable + ".size()";
+        if (TemplateRegistry.IN_PADDED.equals(templateId)) {
+            // 补齐到 2 的幂，语句缓存中只会出现少量不同的 SQL
+            count = uniqueName(variable + "Padded", locals);
+            sb.append(body).append("int ").append(count).append(" = Integer.highestOneBit(").append(variable).append(".size() * 2 - 1);\n");
+        }
+        sb.append(body).append("sql.append(\" AND ");
+        if (TemplateRegistry.IN_CHUNKED.equals(templateId)) {
+            sb.append("(");
+        }
+        sb.append(column).append(' ').append(sqlOperator).append(" (\");\n");
+        sb.append(body).append("for (int ").append(i).append(" = 0; ").append(i).append(" < ").append(count).append("; ").append(i).append("++) {\n");
+        if (TemplateRegistry.IN_CHUNKED.equals(templateId)) {
+            // Oracle 单个 IN 列表最多 1000 项
+            sb.append(loop).append("if (").append(i).append(" > 0) {\n")
+                    .append(loop).append("    sql.append(").append(i).append(" % 1000 == 0 ? \") OR ").append(column).append(' ').append(sqlOperator).append(" (\" : \", \");\n")
+                    .append(loop).append("}\n");
+        } else {
+            sb.append(loop).append("if (").append(i).append(" > 0) {\n")
+                    .append(loop).append("    sql.append(\", \");\n")
+                    .append(loop).append("}\n");
+        }
+        String index = TemplateRegistry.IN_PADDED.equals(templateId) ? i + " < " + variable + ".size() ? " + i + " : 0" : i;
+        sb.append(loop).append("sql.append(\"").append(bind).append("[\").append(").append(index).append(").append(\"]}\");\n");
+        sb.append(body).append("}\n");
+        sb.append(body).append("sql.append(\"").append(TemplateRegistry.IN_CHUNKED.equals(templateId) ? "))" : ")").append("\");\n");
+    }
+
+    /**
+     * List、List 的子类和数组可以按下标访问。类型未知时按可以处理。
+     */
+    private static boolean isIndexable(String type) {
+        if (type == null || type.endsWith("[]")) {
+            return true;
+        }
+        int generic = type.indexOf('<');
+        return (generic < 0 ? type : type.substring(0, generic)).endsWith("List");
+    }
+
+    /**
+     * 返回不与 used 中重复的变量名并记录，重复时依次追加 Value、Value2……
+     */
+    private static String uniqueName(String base, Set<String> used) {
+        String name = base;
+        for (int n = 1; !used.add(name); n++) {
+            name = base + "Value" + (n == 1 ? "" : n);
+        }
+        return name;
+    }
+
+    private static void appendLike(StringBuilder sb, String templateId, String column, String bind, String dbType) {
+        String body = INDENT + "    ";
+        String value = TemplateRegistry.ILIKE.equals(templateId) && !MybatisSqlGen.POSTGRESQL.equals(dbType) ? "LOWER(" + bind + ")" : bind;
+        String escaped = "REPLACE(REPLACE(REPLACE(" + value + ", '!', '!!'), '%', '!%'), '_', '!_')";
+        boolean leading = !TemplateRegistry.STARTS_WITH.equals(templateId);
+        boolean trailing = !TemplateRegistry.ENDS_WITH.equals(templateId);
+        String pattern;
+        if (MybatisSqlGen.MYSQL.equals(dbType)) {
+            pattern = "CONCAT(" + (leading ? "'%', " : "") + escaped + (trailing ? ", '%'" : "") + ")";
+        } else {
+            pattern = (leading ? "'%' || " : "") + escaped + (trailing ? " || '%'" : "");
+        }
+        String match;
+        if (TemplateRegistry.ILIKE.equals(templateId)) {
+            match = MybatisSqlGen.POSTGRESQL.equals(dbType) ? column + " ILIKE " : "LOWER(" + column + ") LIKE ";
+        } else {
+            match = column + " LIKE ";
+        }
+        sb.append(body).append("sql.append(\" AND ").append(match).append(pattern).append(" ESCAPE '!'\");\n");
+    }
+
+    private static String unescapeXml(String text) {
+        return text.replace("&gt;", ">").replace("&lt;", "<");
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -18,7 +18,15 @@ public class StrUtil {
         if (str == null || str.isEmpty()) {
             return str;
         }
-        StringBuilder sb = new StringBuilder();
+        int firstUpper = 0;
+        while (firstUpper < str.length() && !Character.isUpperCase(str.charAt(firstUpper))) {
+            firstUpper++;
+        }
+        // 没有大写字母时无需转换
+        if (firstUpper == str.length()) {
+            return str;
+        }
+        StringBuilder sb = new StringBuilder(str.length() + 4);
         boolean upperCase = false;
         for (int i = 0; i < str.length(); i++) {
             char c = str.charAt(i);
@@ -35,6 +43,18 @@ public class StrUtil {
         return sb.toString();
     }
 
+    /**
+     * 把参数路径转换成可用作 OGNL 变量的名称，例如 param.userName 转换为 param_userName。
+     */
+    public static String toVariableName(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        return sb.toString();
+    }
+
     public static boolean isBlank(String str) {
         return str == null || str.trim().isEmpty();
     }
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 从 DDL 中解析出的一张表：列名和索引。列名统一保存为小写、去掉引号的形式。
+ * 只有 {@link DdlParser} 会修改它，解析完成后对外只读。
+ */
+public final class TableSchema {
+
+    private String name;
+    private final Set<String> columns = new LinkedHashSet<>();
+    private final List<Index> indexes = new ArrayList<>();
+
+    TableSchema(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getColumns() {
+        return Collections.unmodifiableSet(columns);
+    }
+
+    public List<Index> getIndexes() {
+        return Collections.unmodifiableList(indexes);
+    }
+
+    public boolean hasColumn(String column) {
+        return columns.contains(normalize(column));
+    }
+
+    void rename(String name) {
+        this.name = name;
+    }
+
+    void addColumn(String column) {
+        columns.add(column);
+    }
+
+    void dropColumn(String column) {
+        columns.remove(column);
+        // 删除列时数据库会把该列从索引中移除，列都被删除的索引随之删除
+        List<Index> updated = new ArrayList<>(indexes.size());
+        for (Index index : indexes) {
+            if (!index.columns().contains(column)) {
+                updated.add(index);
+            } else if (index.columns().size() > 1) {
+                List<String> rest = new ArrayList<>(index.columns());
+                rest.remove(column);
+                updated.add(new Index(index.name(), rest, index.unique()));
+            }
+        }
+        indexes.clear();
+        indexes.addAll(updated);
+    }
+
+    void renameColumn(String from, String to) {
+        if (!columns.remove(from)) {
+            return;
+        }
+        columns.add(to);
+        indexes.replaceAll(index -> {
+            if (!index.columns().contains(from)) {
+                return index;
+            }
+            List<String> renamed = new ArrayList<>(index.columns());
+            renamed.replaceAll(column -> column.equals(from) ? to : column);
+            return new Index(index.name(), renamed, index.unique());
+        });
+    }
+
+    void addIndex(Index index) {
+        if (!index.columns().isEmpty()) {
+            indexes.add(index);
+        }
+    }
+
+    boolean dropIndex(String indexName) {
+        return indexes.removeIf(index -> indexName.equals(index.name()));
+    }
+
+    /**
+     * 去掉 `name`、"name"、[name] 这类引号并转为小写，schema.table 形式只保留最后一段。
+     */
+    static String normalize(String identifier) {
+        String name = identifier.substring(identifier.lastIndexOf('.') + 1).trim();
+        if (name.length() >= 2 && "`\"[".indexOf(name.charAt(0)) >= 0) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 索引，主键的名称为 {@link #PRIMARY}。函数索引的列保存为表达式文本，例如 lower(name)。
+     */
+    public record Index(String name, List<String> columns, boolean unique) {
+
+        public static final String PRIMARY = "primary";
+
+        public Index {
+            columns = List.copyOf(columns);
+        }
+    }
+}
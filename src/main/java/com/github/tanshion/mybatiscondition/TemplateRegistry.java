@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按 (数据库类型, 模板类型) 保存已编译的条件模板。键为 "模板类型" 时对所有数据库生效，
+ * 为 "数据库类型:模板类型" 时只对该数据库生效并优先于通用模板。
+ */
+public final class TemplateRegistry {
+
+    public static final String LIKE = "LIKE";
+    public static final String EQ = "EQ";
+    public static final String BETWEEN = "BETWEEN";
+    public static final String IN = "IN";
+    public static final String COMPARE = "COMPARE";
+    public static final String IN_ARRAY = "IN_ARRAY";
+    public static final String IN_CHUNKED = "IN_CHUNKED";
+    public static final String IN_PADDED = "IN_PADDED";
+    public static final String STARTS_WITH = "STARTS_WITH";
+    public static final String ENDS_WITH = "ENDS_WITH";
+    public static final String ILIKE = "ILIKE";
+    public static final String RANGE = "RANGE";
+
+    public static final String[] TEMPLATE_IDS = {LIKE, STARTS_WITH, ENDS_WITH, ILIKE, EQ, BETWEEN, RANGE, IN, COMPARE, IN_ARRAY, IN_CHUNKED, IN_PADDED};
+
+    private static final Map<String, String> DEFAULT_TEMPLATES = new LinkedHashMap<>();
+
+    static {
+        // LIKE 类模板先在 <bind> 中转义 ! % _ 并拼好完整的匹配模式，再用 ESCAPE '!' 绑定，
+        // SQL 中不再出现 CONCAT，前缀匹配可以走索引范围扫描
+        DEFAULT_TEMPLATES.put(LIKE, """
+                <if test="${param} != null and ${param} != ''">
+                    <bind name="${var}Pattern" value='"%" + ${param}.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%"'/>
+                    AND ${column} LIKE #{${var}Pattern} ESCAPE '!'
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(STARTS_WITH, """
+                <if test="${param} != null and ${param} != ''">
+                    <bind name="${var}Pattern" value='${param}.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%"'/>
+                    AND ${column} LIKE #{${var}Pattern} ESCAPE '!'
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(ENDS_WITH, """
+                <if test="${param} != null and ${param} != ''">
+                    <bind name="${var}Pattern" value='"%" + ${param}.replace("!", "!!").replace("%", "!%").replace("_", "!_")'/>
+                    AND ${column} LIKE #{${var}Pattern} ESCAPE '!'
+                </if>
+                """);
+        // 忽略大小写：LOWER(列) 可以配合函数索引使用，PostgreSQL 使用 ILIKE
+        DEFAULT_TEMPLATES.put(ILIKE, """
+                <if test="${param} != null and ${param} != ''">
+                    <bind name="${var}Pattern" value='"%" + ${param}.toLowerCase().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%"'/>
+                    AND LOWER(${column}) LIKE #{${var}Pattern} ESCAPE '!'
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(key(MybatisSqlGen.POSTGRESQL, ILIKE), """
+                <if test="${param} != null and ${param} != ''">
+                    <bind name="${var}Pattern" value='"%" + ${param}.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%"'/>
+                    AND ${column} ILIKE #{${var}Pattern} ESCAPE '!'
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(EQ, """
+                <if test="${param} != null and ${param} != ''">
+                    AND ${column} = #{${param}}
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(BETWEEN, """
+                <if test="${param} != null and ${param}.size() == 2">
+                    AND ${column} ${operator} #{${param}[0]} AND #{${param}[1]}
+                </if>
+                """);
+        // 半开区间 [from, to)，边界不会重复计数，也不需要 23:59:59.999 之类的结束时间
+        DEFAULT_TEMPLATES.put(RANGE, """
+                <if test="${param} != null and ${param}.size() == 2">
+                    AND ${column} &gt;= #{${param}[0]} AND ${column} &lt; #{${param}[1]}
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(IN, """
+                <if test="${param} != null and ${param}.size() > 0">
+                    AND ${column} ${operator}
+                    <foreach item="item" index="index" collection="${param}" open="(" separator="," close=")">
+                        #{item}
+                    </foreach>
+                </if>
+                """);
+        // PostgreSQL 数组绑定，SQL 文本与集合大小无关。ArrayTypeHandler 只接受数组，先按第一个元素的类型把集合转成
+        // 对应类型的数组（Object[] 无法推断数据库数组类型）
+        DEFAULT_TEMPLATES.put(key(MybatisSqlGen.POSTGRESQL, IN_ARRAY), """
+                <if test="${param} != null and ${param}.size() > 0">
+                    <bind name="${var}Array" value="${param}.toArray(@java.lang.reflect.Array@newInstance(${param}.iterator().next().getClass(), 0))"/>
+                    AND ${column} ${operator}(#{${var}Array, typeHandler=org.apache.ibatis.type.ArrayTypeHandler})
+                </if>
+                """);
+        // Oracle IN 列表最多 1000 项，超出时按 1000 项拆分为多个 OR 连接的 IN
+        DEFAULT_TEMPLATES.put(key(MybatisSqlGen.ORACLE, IN_CHUNKED), """
+                <if test="${param} != null and ${param}.size() > 0">
+                    AND (${column} IN
+                    <foreach item="item" index="index" collection="${param}" open="(" close=")">
+                        <if test="index > 0">
+                            <choose>
+                                <when test="index % 1000 == 0">) OR ${column} IN (</when>
+                                <otherwise>,</otherwise>
+                            </choose>
+                        </if>
+                        #{item}
+                    </foreach>
+                    )
+                </if>
+                """);
+        // 用第一个元素把列表补齐到 2 的幂，不同大小的列表只产生少量不同的 SQL 文本。
+        // 第一个元素通过 iterator() 取得，Set 等不支持下标访问的集合也可以使用
+        DEFAULT_TEMPLATES.put(IN_PADDED, """
+                <if test="${param} != null and ${param}.size() > 0">
+                    <bind name="${var}First" value="${param}.iterator().next()"/>
+                    AND ${column} IN
+                    <foreach item="item" index="index" collection="${param}" open="(" separator="," close="">
+                        #{item}
+                    </foreach>
+                    <foreach item="item" index="index" collection="${param}" open="" separator="" close=")">
+                        <if test="index &lt; @java.lang.Integer@highestOneBit(${param}.size() * 2 - 1) - ${param}.size()">
+                            , #{${var}First}
+                        </if>
+                    </foreach>
+                </if>
+                """);
+        DEFAULT_TEMPLATES.put(COMPARE, """
+                <if test="${param} != null">
+                    AND ${column} ${operator} #{${param}}
+                </if>
+                """);
+    }
+
+    private static final TemplateRegistry DEFAULT = new TemplateRegistry(Map.of());
+
+    private final Map<String, ConditionTemplate> defaults = new HashMap<>();
+    private final Map<String, Map<String, ConditionTemplate>> dialects = new HashMap<>();
+    private final Map<String, String> errors = new LinkedHashMap<>();
+
+    /**
+     * @param overrides 用户自定义模板，无法编译的模板继续使用默认模板，错误见 {@link #getErrors()}
+     */
+    public TemplateRegistry(Map<String, String> overrides) {
+        DEFAULT_TEMPLATES.forEach(this::register);
+        overrides.forEach((key, text) -> {
+            try {
+                register(key, text);
+            } catch (IllegalArgumentException e) {
+                errors.put(key, e.getMessage());
+            }
+        });
+    }
+
+    public static TemplateRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public static Map<String, String> getDefaultTemplates() {
+        return Collections.unmodifiableMap(DEFAULT_TEMPLATES);
+    }
+
+    /**
+     * @return 无法编译而被忽略的自定义模板，模板键到错误信息
+     */
+    public Map<String, String> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    public static String key(String dbType, String templateId) {
+        return dbType + ":" + templateId;
+    }
+
+    /**
+     * @return 对应模板，数据库专用模板类型在其他数据库上没有定义时返回 null
+     */
+    public ConditionTemplate get(String dbType, String templateId) {
+        Map<String, ConditionTemplate> dialectTemplates = dialects.get(dbType);
+        ConditionTemplate template = dialectTemplates == null ? null : dialectTemplates.get(templateId);
+        return template != null ? template : defaults.get(templateId);
+    }
+
+    private void register(String key, String text) {
+        ConditionTemplate template = ConditionTemplate.compile(text);
+        int separator = key.indexOf(':');
+        if (separator < 0) {
+            defaults.put(key, template);
+        } else {
+            dialects.computeIfAbsent(key.substring(0, separator), dbType -> new HashMap<>()).put(key.substring(separator + 1), template);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiManager;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * PSI 路径的耗时预算。每次尝试前清空 PSI 缓存，测量的是缓存未命中时的完整构建。
+ */
+public class ConditionGenerationPerformanceTest extends LightJavaCodeInsightFixtureTestCase {
+
+    private static final String[] DB_TYPES = {MybatisSqlGen.MYSQL, MybatisSqlGen.POSTGRESQL, MybatisSqlGen.ORACLE};
+
+    @Override
+    protected @NotNull LightProjectDescriptor getProjectDescriptor() {
+        return JAVA_17;
+    }
+
+    public void testBuildLargeClass() {
+        PsiClass psiClass = PerformanceFixtures.addLargeClass(myFixture, "LargeQuery", 600);
+        assertEquals(600, ConditionModelBuilder.build(psiClass).getFields().size());
+        PlatformTestUtil.startPerformanceTest("build model of 600 fields", 1500, () -> ConditionModelBuilder.build(psiClass))
+                .setup(this::dropPsiCaches)
+                .attempts(5)
+                .assertTiming();
+    }
+
+    public void testBuildDeepHierarchy() {
+        PsiClass psiClass = PerformanceFixtures.addHierarchy(myFixture, 10, 50);
+        assertEquals(500, ConditionModelBuilder.build(psiClass).getFields().size());
+        PlatformTestUtil.startPerformanceTest("build model of 10-level hierarchy", 1500, () -> ConditionModelBuilder.build(psiClass))
+                .setup(this::dropPsiCaches)
+                .attempts(5)
+                .assertTiming();
+    }
+
+    public void testGenerateLargeClass() {
+        ConditionModel model = ConditionModelBuilder.build(PerformanceFixtures.addLargeClass(myFixture, "LargeQuery", 600));
+        TemplateRegistry templates = TemplateRegistry.getDefault();
+        PlatformTestUtil.startPerformanceTest("generate 600 conditions per dialect", 500, () -> {
+            for (String dbType : DB_TYPES) {
+                // 每次用新的模型，避免命中上一次的渲染结果
+                new ConditionModel(model.getQualifiedName(), model.getFields())
+                        .generateMyBatisConditions("t", "param", Map.of(), dbType, templates);
+            }
+        }).attempts(5).assertTiming();
+    }
+
+    /**
+     * 打开对话框前在后台读操作中构建模型，测量的是这部分工作。
+     */
+    public void testDialogModelBuild() {
+        PsiClass psiClass = PerformanceFixtures.addHierarchy(myFixture, 10, 60);
+        MybatisConditionService service = MybatisConditionService.getInstance(getProject());
+        PlatformTestUtil.startPerformanceTest("dialog model build in background", 2000, () -> {
+            ConditionModel model = ApplicationManager.getApplication()
+                    .executeOnPooledThread(() -> ReadAction.compute(() -> service.getModel(psiClass))).get();
+            assertEquals(600, model.getFields().size());
+        }).setup(this::dropPsiCaches).attempts(5).assertTiming();
+    }
+
+    /**
+     * 对话框在 EDT 上构造，只使用传入的模型快照，不查找也不构建模型。
+     */
+    public void testDialogConstructionDoesNoPsiWork() {
+        PsiClass psiClass = PerformanceFixtures.addHierarchy(myFixture, 10, 60);
+        ConditionModel model = MybatisConditionService.getInstance(getProject()).getModel(psiClass);
+        dropPsiCaches();
+        GenerationStats stats = GenerationStats.getInstance();
+        long lookups = stats.getCount(GenerationStats.Phase.MODEL_LOOKUP);
+        long builds = stats.getCount(GenerationStats.Phase.MODEL_BUILD);
+        MybatisSqlGenDialog dialog = new MybatisSqlGenDialog(getProject(), model);
+        try {
+            assertEquals(lookups, stats.getCount(GenerationStats.Phase.MODEL_LOOKUP));
+            assertEquals(builds, stats.getCount(GenerationStats.Phase.MODEL_BUILD));
+        } finally {
+            Disposer.dispose(dialog.getDisposable());
+        }
+    }
+
+    private void dropPsiCaches() {
+        PsiManager.getInstance(getProject()).dropPsiCaches();
+    }
+}
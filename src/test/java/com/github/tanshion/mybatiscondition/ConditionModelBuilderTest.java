@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字段模型构建：集合子类型、深继承链、起止字段配对和缓存失效。
+ */
+public class ConditionModelBuilderTest extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected @NotNull LightProjectDescriptor getProjectDescriptor() {
+        return JAVA_17;
+    }
+
+    public void testCollectionSubtypes() {
+        myFixture.addClass("""
+                package com.example;
+                public class IdList extends java.util.ArrayList<Long> {
+                }
+                """);
+        PsiClass psiClass = myFixture.addClass("""
+                package com.example;
+                import java.time.LocalDateTime;
+                import java.util.*;
+                public class CollectionQuery {
+                    private List<Long> ids;
+                    private ArrayList<String> names;
+                    private LinkedList<Integer> levels;
+                    private Set<String> tags;
+                    private TreeSet<String> sortedTags;
+                    private Queue<Long> queue;
+                    private Collection<Long> rawIds;
+                    private IdList idList;
+                    private List<LocalDateTime> createTimes;
+                    private Map<String, Long> counts;
+                    private Long[] array;
+                }
+                """);
+        Map<String, ConditionField> fields = byName(ConditionModelBuilder.build(psiClass));
+        for (String name : List.of("ids", "names", "levels", "tags", "sortedTags", "queue", "rawIds", "idList")) {
+            assertEquals(name, FieldKind.COLLECTION, fields.get(name).kind());
+        }
+        assertEquals("java.lang.Long", fields.get("ids").elementType());
+        assertEquals(FieldKind.TEMPORAL_COLLECTION, fields.get("createTimes").kind());
+        assertEquals(FieldKind.SCALAR, fields.get("counts").kind());
+        assertEquals(FieldKind.SCALAR, fields.get("array").kind());
+    }
+
+    public void testDeepHierarchyIncludesInheritedFields() {
+        PsiClass psiClass = PerformanceFixtures.addHierarchy(myFixture, 10, 5);
+        ConditionModel model = ConditionModelBuilder.build(psiClass);
+        assertEquals(50, model.getFields().size());
+        Map<String, ConditionField> fields = byName(model);
+        assertEquals(FieldKind.STRING, fields.get("level0Field0").kind());
+        assertEquals("level9_field4", fields.get("level9Field4").column());
+    }
+
+    public void testRangePairs() {
+        PsiClass psiClass = myFixture.addClass("""
+                package com.example;
+                import java.time.LocalDateTime;
+                public class RangeQuery {
+                    private LocalDateTime createTimeStart;
+                    private LocalDateTime createTimeEnd;
+                    private Integer minAge;
+                    private Integer maxAge;
+                    private String nameFrom;
+                }
+                """);
+        Map<String, ConditionField> fields = byName(ConditionModelBuilder.build(psiClass));
+        assertEquals(FieldKind.RANGE_START, fields.get("createTimeStart").kind());
+        assertEquals(FieldKind.RANGE_END, fields.get("createTimeEnd").kind());
+        assertEquals("create_time", fields.get("createTimeEnd").column());
+        assertEquals("age", fields.get("minAge").column());
+        assertEquals(FieldKind.STRING, fields.get("nameFrom").kind());
+    }
+
+    public void testNestedObjectsWithCycle() {
+        myFixture.addClass("""
+                package com.example;
+                public class Owner {
+                    private String name;
+                    private Owner manager;
+                    private Address address;
+                }
+                """);
+        myFixture.addClass("""
+                package com.example;
+                public class Address {
+                    private String city;
+                }
+                """);
+        PsiClass psiClass = myFixture.addClass("""
+                package com.example;
+                public class NestedQuery {
+                    private Long id;
+                    private Owner owner;
+                    private Owner creator;
+                }
+                """);
+        ConditionModel model = ConditionModelBuilder.build(psiClass);
+        Map<String, ConditionField> fields = byName(model);
+        assertEquals(FieldKind.NESTED, fields.get("owner").kind());
+        // 同一类型只生成一个 <sql> 片段
+        assertEquals("ownerNestedCondition", fields.get("owner").column());
+        assertEquals("ownerNestedCondition", fields.get("creator").column());
+        assertEquals(List.of("addressNestedCondition", "ownerNestedCondition"), List.copyOf(model.getNestedModels().keySet()));
+        // 回到路径上的 Owner 的字段被丢弃
+        assertEquals(List.of("name", "address"), model.getNestedModels().get("ownerNestedCondition").getFields().stream().map(ConditionField::name).toList());
+
+        String xml = model.generateMyBatisConditions("t", "param", Map.of(), MybatisSqlGen.MYSQL, TemplateRegistry.getDefault());
+        assertTrue(xml, xml.contains("<property name=\"prefix\" value=\"param.owner\"/>"));
+        // 列的表别名由 include 传入，owner 和 creator 可以指向不同的关联表
+        assertTrue(xml, xml.contains("<property name=\"alias\" value=\"t\"/>"));
+        assertTrue(xml, xml.contains("AND ${alias}.city = #{${prefix}.city}"));
+    }
+
+    public void testNestedDepthLimit() {
+        MybatisConditionSettings settings = MybatisConditionSettings.getInstance(getProject());
+        myFixture.addClass("""
+                package com.example;
+                public class Address {
+                    private String city;
+                }
+                """);
+        PsiClass psiClass = myFixture.addClass("""
+                package com.example;
+                public class ShallowQuery {
+                    private String name;
+                    private Address address;
+                }
+                """);
+        settings.setNestedDepth(0);
+        try {
+            ConditionModel model = ConditionModelBuilder.build(psiClass);
+            assertEquals(1, model.getFields().size());
+            assertTrue(model.getNestedModels().isEmpty());
+        } finally {
+            settings.setNestedDepth(MybatisConditionSettings.DEFAULT_NESTED_DEPTH);
+        }
+        assertEquals(2, ConditionModelBuilder.build(psiClass).getFields().size());
+    }
+
+    public void testModelCachedUntilPsiChange() {
+        PsiClass psiClass = myFixture.addClass("""
+                package com.example;
+                public class CachedQuery {
+                    private String name;
+                }
+                """);
+        ConditionModel model = ConditionModelBuilder.build(psiClass);
+        assertSame(model, ConditionModelBuilder.build(psiClass));
+
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> psiClass.add(
+                JavaPsiFacade.getElementFactory(getProject()).createFieldFromText("private Long id;", psiClass)));
+        ConditionModel changed = ConditionModelBuilder.build(psiClass);
+        assertNotSame(model, changed);
+        assertEquals(2, changed.getFields().size());
+    }
+
+    private static Map<String, ConditionField> byName(ConditionModel model) {
+        Map<String, ConditionField> fields = new HashMap<>();
+        for (ConditionField field : model.getFields()) {
+            fields.put(field.name(), field);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按方言对比生成结果与 testData/golden 下的期望文件。
+ */
+public class GoldenXmlTest extends LightJavaCodeInsightFixtureTestCase {
+
+    // 非默认操作符，选用各数据库模板不同的写法：前缀匹配和补齐长度的 IN 共用，其余为方言专用
+    private static final Map<String, String> COMMON_OPERATIONS = Map.of("email", MybatisSqlGen.STARTS_WITH, "tags", MybatisSqlGen.IN_PADDED);
+    private static final Map<String, Map<String, String>> DIALECT_OPERATIONS = Map.of(
+            MybatisSqlGen.MYSQL, Map.of("userName", MybatisSqlGen.ILIKE),
+            MybatisSqlGen.POSTGRESQL, Map.of("userName", MybatisSqlGen.ILIKE, "roleIds", MybatisSqlGen.IN_ARRAY, "statuses", MybatisSqlGen.NOT_IN_ARRAY),
+            MybatisSqlGen.ORACLE, Map.of("userName", MybatisSqlGen.ILIKE, "roleIds", MybatisSqlGen.IN_CHUNKED));
+
+    @Override
+    protected @NotNull LightProjectDescriptor getProjectDescriptor() {
+        return JAVA_17;
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        return "src/test/testData";
+    }
+
+    public void testMysql() {
+        doTest(MybatisSqlGen.MYSQL);
+    }
+
+    public void testPostgresql() {
+        doTest(MybatisSqlGen.POSTGRESQL);
+    }
+
+    public void testOracle() {
+        doTest(MybatisSqlGen.ORACLE);
+    }
+
+    private void doTest(String dbType) {
+        myFixture.copyFileToProject("golden/UserQuery.java", "com/example/UserQuery.java");
+        PsiClass psiClass = myFixture.findClass("com.example.UserQuery");
+        Map<String, String> operations = new HashMap<>(COMMON_OPERATIONS);
+        operations.putAll(DIALECT_OPERATIONS.get(dbType));
+        String xml = ConditionModelBuilder.build(psiClass).generateMyBatisConditions("t", "param", operations, dbType, TemplateRegistry.getDefault());
+        assertSameLinesWithFile(getTestDataPath() + "/golden/UserQuery." + dbType + ".xml", xml);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Mapper XML 中慢 SQL 写法的高亮和快速修复。
+ */
+public class MapperSqlInspectionTest extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected @NotNull LightProjectDescriptor getProjectDescriptor() {
+        return JAVA_17;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        MybatisConditionSettings.getInstance(getProject()).setDbType(MybatisSqlGen.MYSQL);
+        myFixture.enableInspections(new MapperSqlInspection());
+    }
+
+    public void testHighlighting() {
+        myFixture.configureByText("UserMapper.xml", """
+                <mapper namespace="com.example.UserMapper">
+                    <select id="find" resultType="map">
+                        SELECT * FROM user t
+                        WHERE t.name <warning descr="LIKE with a leading wildcard cannot use an index">LIKE CONCAT('%', #{name})</warning>
+                        AND t.id = <warning descr="${} interpolation creates a new statement for every value and is open to SQL injection">${id}</warning>
+                        AND t.city = #{${prefix}.city}
+                        AND t.role_id IN
+                        <<warning descr="IN list length follows the collection size: one cached statement per size, and more than 1000 items fail on Oracle">foreach</warning> item="roleId" collection="roleIds" open="(" separator="," close=")">
+                            #{roleId}
+                        </foreach>
+                        ORDER BY <warning descr="${} interpolation is open to SQL injection: bind values with #{}, and only interpolate whitelisted identifiers such as column or table names">${sort}</warning>
+                    </select>
+                </mapper>
+                """);
+        myFixture.checkHighlighting(true, false, false);
+    }
+
+    public void testBindInterpolatedValue() {
+        myFixture.configureByText("UserMapper.xml", """
+                <mapper namespace="com.example.UserMapper">
+                    <select id="find" resultType="map">
+                        SELECT * FROM user t WHERE t.id = ${i<caret>d}
+                    </select>
+                </mapper>
+                """);
+        myFixture.launchAction(myFixture.findSingleIntention("Bind as a parameter with #{}"));
+        myFixture.checkResult("""
+                <mapper namespace="com.example.UserMapper">
+                    <select id="find" resultType="map">
+                        SELECT * FROM user t WHERE t.id = #{id}
+                    </select>
+                </mapper>
+                """);
+    }
+
+    public void testPadInList() {
+        myFixture.configureByText("UserMapper.xml", """
+                <mapper namespace="com.example.UserMapper">
+                    <select id="find" resultType="map">
+                        SELECT * FROM user t
+                        WHERE t.id IN
+                        <for<caret>each item="id" collection="ids" open="(" separator="," close=")">
+                            #{id}
+                        </foreach>
+                    </select>
+                </mapper>
+                """);
+        myFixture.launchAction(myFixture.findSingleIntention("Pad the IN list to a power of two"));
+        myFixture.checkResult("""
+                <mapper namespace="com.example.UserMapper">
+                    <select id="find" resultType="map">
+                        SELECT * FROM user t
+                        WHERE t.id IN
+                        <bind name="idsFirst" value="ids.iterator().next()"/>
+                        <foreach item="item" index="index" collection="ids" open="(" separator="," close="">
+                            #{item}
+                        </foreach>
+                        <foreach item="item" index="index" collection="ids" open="" separator="" close=")">
+                            <if test="index &lt; @java.lang.Integer@highestOneBit(ids.size() * 2 - 1) - ids.size()">
+                                , #{idsFirst}
+                            </if>
+                        </foreach>
+                    </select>
+                </mapper>
+                """);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.JavaCodeInsightTestFixture;
+
+/**
+ * 生成测试用的合成参数类。
+ */
+final class PerformanceFixtures {
+
+    // 按字段序号轮流使用，覆盖所有字段类型
+    private static final String[] FIELD_TYPES = {"String", "Long", "List<Long>", "LocalDateTime", "Boolean",
+            "ArrayList<String>", "Set<Integer>", "LinkedList<Long>", "List<LocalDateTime>", "Integer", "Collection<String>", "IdCollection"};
+
+    private PerformanceFixtures() {
+    }
+
+    /**
+     * 一个有 fieldCount 个字段的类，每 10 个字段中有一对起止字段。
+     */
+    static PsiClass addLargeClass(JavaCodeInsightTestFixture fixture, String className, int fieldCount) {
+        addIdCollection(fixture);
+        StringBuilder source = new StringBuilder(header()).append("public class ").append(className).append(" {\n");
+        for (int i = 0; i < fieldCount; i++) {
+            if (i % 10 == 8 && i + 1 < fieldCount) {
+                source.append("    private LocalDateTime time").append(i).append("Start;\n");
+                source.append("    private LocalDateTime time").append(i).append("End;\n");
+                i++;
+                continue;
+            }
+            source.append("    private ").append(FIELD_TYPES[i % FIELD_TYPES.length]).append(" field").append(i).append(";\n");
+        }
+        return fixture.addClass(source.append("}\n").toString());
+    }
+
+    /**
+     * levels 层的继承链，每层 fieldsPerLevel 个字段，返回最底层的子类。
+     */
+    static PsiClass addHierarchy(JavaCodeInsightTestFixture fixture, int levels, int fieldsPerLevel) {
+        addIdCollection(fixture);
+        PsiClass psiClass = null;
+        for (int level = 0; level < levels; level++) {
+            StringBuilder source = new StringBuilder(header()).append("public class Level").append(level);
+            if (level > 0) {
+                source.append(" extends Level").append(level - 1);
+            }
+            source.append(" {\n");
+            for (int i = 0; i < fieldsPerLevel; i++) {
+                source.append("    private ").append(FIELD_TYPES[i % FIELD_TYPES.length])
+                        .append(" level").append(level).append("Field").append(i).append(";\n");
+            }
+            psiClass = fixture.addClass(source.append("}\n").toString());
+        }
+        return psiClass;
+    }
+
+    private static void addIdCollection(JavaCodeInsightTestFixture fixture) {
+        if (fixture.getJavaFacade().findClass("com.example.IdCollection", GlobalSearchScope.allScope(fixture.getProject())) == null) {
+            fixture.addClass("""
+                    package com.example;
+                    public class IdCollection extends java.util.HashSet<Long> {
+                    }
+                    """);
+        }
+    }
+
+    private static String header() {
+        return """
+                package com.example;
+                import java.time.LocalDateTime;
+                import java.util.*;
+                """;
+    }
+}
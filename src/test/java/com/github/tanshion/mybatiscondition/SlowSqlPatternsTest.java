@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tanshion.mybatiscondition;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * 慢 SQL 写法的文本匹配：重叠匹配只报一次、${} 的值位置判断、include 属性豁免和按日期比较的改写。
+ */
+public class SlowSqlPatternsTest extends TestCase {
+
+    public void testNestedConcatReportedOnce() {
+        List<SlowSqlPatterns.Match> matches = SlowSqlPatterns.find("name LIKE CONCAT('%', CONCAT(#{name}, '%'))", MybatisSqlGen.ORACLE);
+        assertEquals(1, matches.size());
+        assertEquals(SlowSqlPatterns.Kind.LEADING_WILDCARD, matches.get(0).kind());
+        assertEquals(5, matches.get(0).start());
+        assertEquals("LIKE CONCAT(#{name}, '%')", matches.get(0).replacement());
+    }
+
+    public void testLeadingWildcardRewrites() {
+        assertEquals("LIKE CONCAT(#{name}, '%')", single("name LIKE CONCAT('%', #{name}, '%')").replacement());
+        assertEquals("LIKE #{name} || '%'", single("name LIKE '%' || #{name} || '%'").replacement());
+        // 后缀匹配和字面量改成前缀匹配会改变语义，只提示
+        assertNull(single("name LIKE CONCAT('%', #{name})").replacement());
+        assertNull(single("name LIKE '%abc'").replacement());
+    }
+
+    public void testInterpolationInValuePosition() {
+        assertEquals("#{id}", single("t.id = ${id}").replacement());
+        assertEquals("#{id}", single("t.id &gt; ${id}").replacement());
+        assertEquals("#{id}", single("t.id =\n            ${id}").replacement());
+    }
+
+    public void testInterpolationOfIdentifierHasNoFix() {
+        SlowSqlPatterns.Match match = single("ORDER BY ${sort}");
+        assertEquals(SlowSqlPatterns.Kind.INTERPOLATION, match.kind());
+        assertNull(match.replacement());
+        // 操作符离得太远时按标识符处理，宁可不给修复
+        assertNull(single("t.id =                  ${id}").replacement());
+    }
+
+    public void testIncludePropertiesAreIgnored() {
+        assertNoMatches(SlowSqlPatterns.find("AND ${alias}.city = #{${prefix}.city} AND t.name LIKE #{${var}Pattern}", MybatisSqlGen.MYSQL));
+    }
+
+    public void testFunctionOnColumn() {
+        SlowSqlPatterns.Match match = single("LOWER(t.name) = #{name}");
+        assertEquals(SlowSqlPatterns.Kind.FUNCTION_ON_COLUMN, match.kind());
+        assertEquals("Function on column 't.name' prevents index use", match.message());
+        assertNull(match.replacement());
+    }
+
+    public void testDayFunctionTruncatesBothBounds() {
+        assertEquals("t.create_time &gt;= DATE(#{day}) AND t.create_time &lt; DATE(#{day}) + INTERVAL 1 DAY",
+                single("DATE(t.create_time) = #{day}").replacement());
+        assertEquals("t.create_time &gt;= CAST(#{day} AS DATE) AND t.create_time &lt; CAST(#{day} AS DATE) + 1",
+                SlowSqlPatterns.find("DATE(t.create_time) = #{day}", MybatisSqlGen.POSTGRESQL).get(0).replacement());
+        assertEquals("t.create_time &gt;= TRUNC(#{day}) AND t.create_time &lt; TRUNC(#{day}) + 1",
+                SlowSqlPatterns.find("TRUNC(t.create_time) = #{day}", MybatisSqlGen.ORACLE).get(0).replacement());
+    }
+
+    public void testDayFunctionInCdataIsNotEscaped() {
+        SlowSqlPatterns.Match match = single("<![CDATA[ DATE(t.create_time) = #{day} ]]>");
+        assertEquals("t.create_time >= DATE(#{day}) AND t.create_time < DATE(#{day}) + INTERVAL 1 DAY", match.replacement());
+    }
+
+    private static SlowSqlPatterns.Match single(String text) {
+        List<SlowSqlPatterns.Match> matches = SlowSqlPatterns.find(text, MybatisSqlGen.MYSQL);
+        assertEquals(matches.toString(), 1, matches.size());
+        return matches.get(0);
+    }
+
+    private static void assertNoMatches(List<?> list) {
+        assertTrue(list.toString(), list.isEmpty());
+    }
+}
@@ -0,0 +1,20 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UserQuery {
+    private String userName;
+    private String email;
+    private Boolean enabled;
+    private List<Long> roleIds;
+    private List<String> tags;
+    private List<Integer> statuses;
+    private List<LocalDateTime> createTimes;
+    private LocalDateTime updateTimeStart;
+    private LocalDateTime updateTimeEnd;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private Integer status;
+}